@@ -0,0 +1,405 @@
+package org.sample;
+
+import java.util.NoSuchElementException;
+
+/**
+ * In-memory B+-tree mapping Comparable keys to values, used by BPlusTreeMap and BPlusTreeDictionary.
+ * Nodes hold up to ORDER keys in contiguous arrays (a few cache lines of references), values are
+ * only stored in the leaves and the leaves are linked in key order, so that ordered scans never
+ * go back up the tree.
+ * Every node but the root holds at least ORDER/2 keys: insert splits full nodes, remove borrows
+ * from or merges with a sibling. All the operations are O(logn).
+ * @author Scala28
+ */
+class BPlusTree{
+    static final int ORDER = 32;
+    private static final int MIN_KEYS = ORDER/2;
+    private Node root;
+    private Leaf first;
+    private int size;
+    //Result of a split, read by the parent right after the recursive call
+    private Comparable splitKey;
+    private Node splitNode;
+
+    public BPlusTree(){
+        clear();
+    }
+    public void clear(){
+        first = new Leaf();
+        root = first;
+        size = 0;
+    }
+    public int size(){return size;}
+    public boolean isEmpty(){return size == 0;}
+    //O(logn)
+    public Object get(Comparable key){
+        Leaf leaf = findLeaf(key);
+        int pos = leaf.indexOf(key);
+        return pos >= 0 ? leaf.values[pos] : null;
+    }
+    //O(logn)
+    public Object put(Comparable key, Object value){
+        Object old = insert(root, key, value);
+        if(splitNode != null){
+            Inner newRoot = new Inner();
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = splitNode;
+            newRoot.size = 1;
+            root = newRoot;
+            splitNode = null;
+            splitKey = null;
+        }
+        return old;
+    }
+    //O(logn)
+    public Object remove(Comparable key){
+        Object old = delete(root, key);
+        if(root instanceof Inner && root.size == 0)
+            root = ((Inner)root).children[0];
+        return old;
+    }
+    /**
+     * @return All the keys in ascending order, collected walking the linked leaves.
+     */
+    public Comparable[] keys(){
+        Comparable[] keys = new Comparable[size];
+        int j = 0;
+        for(Leaf leaf = first; leaf != null; leaf = leaf.next){
+            System.arraycopy(leaf.keys, 0, keys, j, leaf.size);
+            j += leaf.size;
+        }
+        return keys;
+    }
+    //O(logn)
+    public Comparable floor(Comparable key){
+        Leaf leaf = findLeaf(checked(key));
+        int pos = leaf.indexOf(key);
+        return keyAtOrBefore(leaf, pos >= 0 ? pos : -pos-2);
+    }
+    //O(logn)
+    public Comparable ceiling(Comparable key){
+        Leaf leaf = findLeaf(checked(key));
+        int pos = leaf.indexOf(key);
+        return keyAtOrAfter(leaf, pos >= 0 ? pos : -pos-1);
+    }
+    //O(logn)
+    public Comparable lower(Comparable key){
+        Leaf leaf = findLeaf(checked(key));
+        int pos = leaf.indexOf(key);
+        return keyAtOrBefore(leaf, pos >= 0 ? pos-1 : -pos-2);
+    }
+    //O(logn)
+    public Comparable higher(Comparable key){
+        Leaf leaf = findLeaf(checked(key));
+        int pos = leaf.indexOf(key);
+        return keyAtOrAfter(leaf, pos >= 0 ? pos+1 : -pos-1);
+    }
+    //O(1), null if the tree is empty
+    public Comparable first(){
+        return size == 0 ? null : first.keys[0];
+    }
+    //O(logn), null if the tree is empty
+    public Comparable last(){
+        Node node = root;
+        while(node instanceof Inner)
+            node = ((Inner)node).children[node.size];
+        return size == 0 ? null : node.keys[node.size-1];
+    }
+    //O(logn) to position the cursor, O(1) for every key walking the linked leaves
+    public Cursor range(Comparable from, Comparable to){
+        if(from == null)
+            return new LeafCursor(first, 0, to);
+        Leaf leaf = findLeaf(from);
+        int pos = leaf.indexOf(from);
+        return new LeafCursor(leaf, pos >= 0 ? pos : -pos-1, to);
+    }
+    private Leaf findLeaf(Comparable key){
+        Node node = root;
+        while(node instanceof Inner)
+            node = ((Inner)node).children[node.childIndex(key)];
+        return (Leaf)node;
+    }
+
+    private Object insert(Node node, Comparable key, Object value){
+        if(node instanceof Leaf){
+            Leaf leaf = (Leaf)node;
+            int pos = leaf.indexOf(key);
+            if(pos >= 0){
+                Object old = leaf.values[pos];
+                leaf.values[pos] = value;
+                return old;
+            }
+            leaf.insertAt(-pos-1, key, value);
+            size++;
+            if(leaf.size > ORDER)
+                splitLeaf(leaf);
+            return null;
+        }
+        Inner inner = (Inner)node;
+        int child = inner.childIndex(key);
+        Object old = insert(inner.children[child], key, value);
+        if(splitNode != null){
+            inner.insertAt(child, splitKey, splitNode);
+            splitNode = null;
+            splitKey = null;
+            if(inner.size > ORDER)
+                splitInner(inner);
+        }
+        return old;
+    }
+    private void splitLeaf(Leaf leaf){
+        Leaf right = new Leaf();
+        int half = leaf.size/2;
+        right.size = leaf.size - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.size);
+        System.arraycopy(leaf.values, half, right.values, 0, right.size);
+        clear(leaf.keys, half, leaf.size);
+        clear(leaf.values, half, leaf.size);
+        leaf.size = half;
+        right.next = leaf.next;
+        right.prev = leaf;
+        if(leaf.next != null)
+            leaf.next.prev = right;
+        leaf.next = right;
+        splitKey = right.keys[0];
+        splitNode = right;
+    }
+    private void splitInner(Inner inner){
+        Inner right = new Inner();
+        int mid = inner.size/2;
+        right.size = inner.size - mid - 1;
+        System.arraycopy(inner.keys, mid+1, right.keys, 0, right.size);
+        System.arraycopy(inner.children, mid+1, right.children, 0, right.size+1);
+        splitKey = inner.keys[mid];
+        clear(inner.keys, mid, inner.size);
+        clear(inner.children, mid+1, inner.size+1);
+        inner.size = mid;
+        splitNode = right;
+    }
+    private Object delete(Node node, Comparable key){
+        if(node instanceof Leaf){
+            Leaf leaf = (Leaf)node;
+            int pos = leaf.indexOf(key);
+            if(pos < 0)
+                return null;
+            Object old = leaf.values[pos];
+            leaf.removeAt(pos);
+            size--;
+            return old;
+        }
+        Inner inner = (Inner)node;
+        int child = inner.childIndex(key);
+        Object old = delete(inner.children[child], key);
+        if(inner.children[child].size < MIN_KEYS)
+            rebalance(inner, child);
+        return old;
+    }
+    //Restores the minimum occupancy of parent.children[i], borrowing from a sibling or merging with it
+    private void rebalance(Inner parent, int i){
+        Node left = i > 0 ? parent.children[i-1] : null;
+        Node right = i < parent.size ? parent.children[i+1] : null;
+        if(left != null && left.size > MIN_KEYS)
+            borrowFromLeft(parent, i);
+        else if(right != null && right.size > MIN_KEYS)
+            borrowFromRight(parent, i);
+        else if(left != null)
+            merge(parent, i-1);
+        else if(right != null)
+            merge(parent, i);
+    }
+    private void borrowFromLeft(Inner parent, int i){
+        Node node = parent.children[i];
+        Node left = parent.children[i-1];
+        if(node instanceof Leaf){
+            Leaf l = (Leaf)left;
+            ((Leaf)node).insertAt(0, l.keys[l.size-1], l.values[l.size-1]);
+            l.removeAt(l.size-1);
+            parent.keys[i-1] = node.keys[0];
+        }else{
+            Inner n = (Inner)node;
+            Inner l = (Inner)left;
+            System.arraycopy(n.keys, 0, n.keys, 1, n.size);
+            System.arraycopy(n.children, 0, n.children, 1, n.size+1);
+            n.keys[0] = parent.keys[i-1];
+            n.children[0] = l.children[l.size];
+            n.size++;
+            parent.keys[i-1] = l.keys[l.size-1];
+            l.keys[l.size-1] = null;
+            l.children[l.size] = null;
+            l.size--;
+        }
+    }
+    private void borrowFromRight(Inner parent, int i){
+        Node node = parent.children[i];
+        Node right = parent.children[i+1];
+        if(node instanceof Leaf){
+            Leaf r = (Leaf)right;
+            Leaf n = (Leaf)node;
+            n.insertAt(n.size, r.keys[0], r.values[0]);
+            r.removeAt(0);
+            parent.keys[i] = r.keys[0];
+        }else{
+            Inner n = (Inner)node;
+            Inner r = (Inner)right;
+            n.keys[n.size] = parent.keys[i];
+            n.children[n.size+1] = r.children[0];
+            n.size++;
+            parent.keys[i] = r.keys[0];
+            System.arraycopy(r.keys, 1, r.keys, 0, r.size-1);
+            System.arraycopy(r.children, 1, r.children, 0, r.size);
+            r.keys[r.size-1] = null;
+            r.children[r.size] = null;
+            r.size--;
+        }
+    }
+    //Moves parent.children[i+1] into parent.children[i] and drops it from the parent
+    private void merge(Inner parent, int i){
+        Node left = parent.children[i];
+        Node right = parent.children[i+1];
+        if(left instanceof Leaf){
+            Leaf l = (Leaf)left;
+            Leaf r = (Leaf)right;
+            System.arraycopy(r.keys, 0, l.keys, l.size, r.size);
+            System.arraycopy(r.values, 0, l.values, l.size, r.size);
+            l.size += r.size;
+            l.next = r.next;
+            if(r.next != null)
+                r.next.prev = l;
+        }else{
+            Inner l = (Inner)left;
+            Inner r = (Inner)right;
+            l.keys[l.size] = parent.keys[i];
+            System.arraycopy(r.keys, 0, l.keys, l.size+1, r.size);
+            System.arraycopy(r.children, 0, l.children, l.size+1, r.size+1);
+            l.size += r.size + 1;
+        }
+        System.arraycopy(parent.keys, i+1, parent.keys, i, parent.size-i-1);
+        System.arraycopy(parent.children, i+2, parent.children, i+1, parent.size-i-1);
+        parent.keys[parent.size-1] = null;
+        parent.children[parent.size] = null;
+        parent.size--;
+    }
+    private static Comparable checked(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        return key;
+    }
+    //Keys of a leaf are greater than all the keys of the previous leaves and less than those of the next ones
+    private static Comparable keyAtOrAfter(Leaf leaf, int i){
+        if(i == leaf.size){
+            leaf = leaf.next;
+            i = 0;
+        }
+        return leaf != null ? leaf.keys[i] : null;
+    }
+    private static Comparable keyAtOrBefore(Leaf leaf, int i){
+        if(i < 0){
+            leaf = leaf.prev;
+            if(leaf == null)
+                return null;
+            i = leaf.size-1;
+        }
+        return leaf.keys[i];
+    }
+    private static void clear(Object[] a, int from, int to){
+        for(int i=from; i<to; i++)
+            a[i] = null;
+    }
+
+    private static class LeafCursor implements Cursor{
+        private Leaf leaf;
+        private int index;
+        private final Comparable to;
+        private Leaf currentLeaf;
+        private int current;
+        public LeafCursor(Leaf leaf, int index, Comparable to){
+            this.leaf = leaf;
+            this.index = index;
+            this.to = to;
+            skipExhaustedLeaf();
+        }
+        @SuppressWarnings("unchecked")
+        public boolean hasNext(){
+            return leaf != null && (to == null || leaf.keys[index].compareTo(to) < 0);
+        }
+        public Comparable next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            currentLeaf = leaf;
+            current = index++;
+            skipExhaustedLeaf();
+            return currentLeaf.keys[current];
+        }
+        public Object getValue(){
+            if(currentLeaf == null)
+                throw new IllegalStateException();
+            return currentLeaf.values[current];
+        }
+        private void skipExhaustedLeaf(){
+            if(leaf != null && index == leaf.size){
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+    abstract static class Node{
+        //One extra slot lets a node overflow before being split
+        final Comparable[] keys = new Comparable[ORDER+1];
+        int size;
+
+        //Binary search: the position of key, or -(insertion point)-1 if it is not found
+        @SuppressWarnings("unchecked")
+        int indexOf(Comparable key){
+            int low = 0, high = size-1;
+            while(low <= high){
+                int mid = (low+high) >>> 1;
+                int cmp = keys[mid].compareTo(key);
+                if(cmp < 0)
+                    low = mid+1;
+                else if(cmp > 0)
+                    high = mid-1;
+                else
+                    return mid;
+            }
+            return -(low+1);
+        }
+        //Index of the child holding key: the number of separators less than or equal to key
+        int childIndex(Comparable key){
+            int pos = indexOf(key);
+            return pos >= 0 ? pos+1 : -pos-1;
+        }
+    }
+    static class Leaf extends Node{
+        final Object[] values = new Object[ORDER+1];
+        Leaf next;
+        Leaf prev;
+
+        void insertAt(int pos, Comparable key, Object value){
+            System.arraycopy(keys, pos, keys, pos+1, size-pos);
+            System.arraycopy(values, pos, values, pos+1, size-pos);
+            keys[pos] = key;
+            values[pos] = value;
+            size++;
+        }
+        void removeAt(int pos){
+            System.arraycopy(keys, pos+1, keys, pos, size-pos-1);
+            System.arraycopy(values, pos+1, values, pos, size-pos-1);
+            size--;
+            keys[size] = null;
+            values[size] = null;
+        }
+    }
+    static class Inner extends Node{
+        final Node[] children = new Node[ORDER+2];
+
+        //Adds the separator key at pos and the node at its right
+        void insertAt(int pos, Comparable key, Node right){
+            System.arraycopy(keys, pos, keys, pos+1, size-pos);
+            System.arraycopy(children, pos+1, children, pos+2, size-pos);
+            keys[pos] = key;
+            children[pos+1] = right;
+            size++;
+        }
+    }
+}
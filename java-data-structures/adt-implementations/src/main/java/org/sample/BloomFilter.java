@@ -0,0 +1,337 @@
+package org.sample;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Probabilistic set answering whether a key might have been added: never wrong for added keys,
+ * wrong for the others with a configurable probability.
+ * The bits are split into blocks of 512 bits, the size of a cache line: a key sets and tests all its
+ * bits inside a single block, so a lookup touches at most two cache lines however many bits it checks.
+ * The blocks are not aligned to cache lines, as the array header and the garbage collector decide where
+ * the words fall, so most blocks straddle two lines. Confining the bits of a key to one block raises
+ * the false positive rate a little, which is compensated by sizing the filter a bit larger than a
+ * classic Bloom filter.
+ * Keys are hashed through their hashCode (by content for byte[]), so a filter written with writeTo
+ * can be read back by another process only if the hashCode of its keys does not depend on the run,
+ * as for String, Integer, Long and byte[].
+ * @author Scala28
+ */
+class BloomFilter{
+    private static final int MAGIC = 0x424C4F4D;
+    private static final int VERSION = 1;
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / 64;
+    private static final int MAX_HASHES = 16;
+    //Extra bits per key making up for the uneven load of the blocks
+    private static final double BLOCK_OVERHEAD = 1.2;
+    private static final int MAX_BLOCKS = Integer.MAX_VALUE / BLOCK_WORDS;
+    //Every multiplication brings new bits to the top 9, the position of the next bit inside the block
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private final int expectedKeys;
+    private int count;
+
+    /**
+     * @param expectedKeys Number of keys the filter is sized for: adding more raises the false positive rate.
+     * @param falsePositiveRate Probability that mightContain returns true for a key never added,
+     *          once expectedKeys keys have been added.
+     * @throws IllegalArgumentException If expectedKeys is negative or falsePositiveRate is not in (0, 1).
+     */
+    public BloomFilter(int expectedKeys, double falsePositiveRate){
+        if(expectedKeys < 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException();
+        double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long bits = (long)Math.ceil(Math.max(expectedKeys, 1) * bitsPerKey * BLOCK_OVERHEAD);
+        blocks = (int)Math.min((bits + BLOCK_BITS - 1) / BLOCK_BITS, MAX_BLOCKS);
+        hashes = (int)Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+        this.expectedKeys = expectedKeys;
+        words = new long[blocks * BLOCK_WORDS];
+    }
+    private BloomFilter(int blocks, int hashes, int expectedKeys, int count, long[] words){
+        this.blocks = blocks;
+        this.hashes = hashes;
+        this.expectedKeys = expectedKeys;
+        this.count = count;
+        this.words = words;
+    }
+    public boolean isEmpty(){return count == 0;}
+    public void makeEmpty(){
+        for(int i=0; i<words.length; i++)
+            words[i] = 0;
+        count = 0;
+    }
+    /**
+     * @throws IllegalArgumentException If the key is null.
+     */
+    //O(1)
+    public void add(Object key){
+        long h = hash(key);
+        int base = block(h) * BLOCK_WORDS;
+        for(int i=0; i<hashes; i++){
+            h *= GOLDEN;
+            int bit = (int)(h >>> 55);
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+        count++;
+    }
+    /**
+     * @return False if the key was surely never added; true if it was, or with the false positive rate if it was not.
+     * @throws IllegalArgumentException If the key is null.
+     */
+    //O(1), at most two cache lines
+    public boolean mightContain(Object key){
+        long h = hash(key);
+        int base = block(h) * BLOCK_WORDS;
+        for(int i=0; i<hashes; i++){
+            h *= GOLDEN;
+            int bit = (int)(h >>> 55);
+            if((words[base + (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+    /**
+     * @return The number of keys added, counting twice the keys added twice.
+     */
+    public int count(){return count;}
+    public int expectedKeys(){return expectedKeys;}
+    /**
+     * @return The size of the filter in bytes.
+     */
+    public long sizeInBytes(){return 8L * words.length;}
+    /**
+     * Write the filter to the given stream, in a format read back by readFrom. The stream is not closed.
+     * @throws StorageException If the stream can not be written.
+     */
+    public void writeTo(OutputStream out){
+        if(out == null)
+            throw new IllegalArgumentException();
+        try{
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(blocks);
+            data.writeInt(hashes);
+            data.writeInt(expectedKeys);
+            data.writeInt(count);
+            for(int i=0; i<words.length; i++)
+                data.writeLong(words[i]);
+            data.flush();
+        }catch(IOException ex){
+            throw new StorageException(ex);
+        }
+    }
+    /**
+     * Read a filter written by writeTo. The stream is not closed.
+     * @throws StorageException If the stream can not be read or was not written by writeTo.
+     */
+    public static BloomFilter readFrom(InputStream in){
+        if(in == null)
+            throw new IllegalArgumentException();
+        try{
+            DataInputStream data = new DataInputStream(in);
+            if(data.readInt() != MAGIC)
+                throw new StorageException("Not a bloom filter");
+            if(data.readInt() != VERSION)
+                throw new StorageException("Unsupported bloom filter version");
+            int blocks = data.readInt();
+            int hashes = data.readInt();
+            int expectedKeys = data.readInt();
+            int count = data.readInt();
+            if(blocks <= 0 || blocks > MAX_BLOCKS || hashes <= 0 || hashes > MAX_HASHES)
+                throw new StorageException("Corrupted bloom filter");
+            long[] words = new long[blocks * BLOCK_WORDS];
+            for(int i=0; i<words.length; i++)
+                words[i] = data.readLong();
+            return new BloomFilter(blocks, hashes, expectedKeys, count, words);
+        }catch(IOException ex){
+            throw new StorageException(ex);
+        }
+    }
+    private static long hash(Object key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        return Hashing.mix(HashStrategy.MIX.hash(key) & 0xFFFFFFFFL);
+    }
+    //The high 32 bits pick the block
+    private int block(long h){
+        return (int)(((h >>> 32) * blocks) >>> 32);
+    }
+}
+
+/**
+ * Set answering contains through a BloomFilter before asking the wrapped set, so that most lookups of
+ * missing elements cost at most two cache lines instead of a search of the set.
+ * The filter is rebuilt twice as large whenever the elements outgrow it, which keeps the false
+ * positive rate at the configured one and costs O(1) amortized for every add.
+ * The wrapped set must not be modified directly afterwards.
+ * @author Scala28
+ */
+class BloomFilteredSet implements Set{
+    private static final int INITIAL_CAPACITY = 16;
+    private final Set set;
+    private final double falsePositiveRate;
+    private BloomFilter filter;
+
+    /**
+     * @param set The set to wrap; its current elements are added to the filter.
+     * @param falsePositiveRate The probability that a missing element reaches the wrapped set.
+     * @throws IllegalArgumentException If set is null or falsePositiveRate is not in (0, 1).
+     */
+    public BloomFilteredSet(Set set, double falsePositiveRate){
+        if(set == null || !(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException();
+        this.set = set;
+        this.falsePositiveRate = falsePositiveRate;
+        rebuild();
+    }
+    public void makeEmpty(){
+        set.makeEmpty();
+        filter = new BloomFilter(INITIAL_CAPACITY, falsePositiveRate);
+    }
+    public boolean isEmpty(){return set.isEmpty();}
+    /**
+     * @throws IllegalArgumentException If obj is null, or not Comparable while the wrapped set is a SortedSet.
+     */
+    //O(1) plus the add of the wrapped set
+    public void add(Object obj){
+        if(obj == null || (set instanceof SortedSet && !(obj instanceof Comparable)))
+            throw new IllegalArgumentException();
+        if(filter.mightContain(obj) && set.contains(obj))
+            return;
+        //A SortedSet only takes Comparable elements through add(Comparable)
+        if(set instanceof SortedSet)
+            ((SortedSet)set).add((Comparable)obj);
+        else
+            set.add(obj);
+        filter.add(obj);
+        if(filter.count() > filter.expectedKeys())
+            rebuild();
+    }
+    //O(1) for most missing elements, otherwise the contains of the wrapped set
+    public boolean contains(Object obj){
+        return filter.mightContain(obj) && set.contains(obj);
+    }
+    public Object[] toArray(){return set.toArray();}
+    public BloomFilter filter(){return filter;}
+    private void rebuild(){
+        Object[] elements = set.toArray();
+        filter = new BloomFilter(Math.max(2 * elements.length, INITIAL_CAPACITY), falsePositiveRate);
+        for(int i=0; i<elements.length; i++)
+            filter.add(elements[i]);
+    }
+}
+
+/**
+ * Map answering get through a BloomFilter of its keys before asking the wrapped map, so that most
+ * lookups of missing keys cost at most two cache lines instead of a search of the map.
+ * Removed keys stay in the filter, which only makes it less selective: the filter is rebuilt from
+ * the current keys when the keys added since the last rebuild outgrow it.
+ * The wrapped map must not be modified directly afterwards.
+ * @author Scala28
+ */
+class BloomFilteredMap implements Map{
+    private static final int INITIAL_CAPACITY = 16;
+    private final Map map;
+    private final double falsePositiveRate;
+    private BloomFilter filter;
+
+    /**
+     * @param map The map to wrap; its current keys are added to the filter.
+     * @param falsePositiveRate The probability that a missing key reaches the wrapped map.
+     * @throws IllegalArgumentException If map is null or falsePositiveRate is not in (0, 1).
+     */
+    public BloomFilteredMap(Map map, double falsePositiveRate){
+        if(map == null || !(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException();
+        this.map = map;
+        this.falsePositiveRate = falsePositiveRate;
+        rebuild();
+    }
+    public void makeEmpty(){
+        map.makeEmpty();
+        filter = new BloomFilter(INITIAL_CAPACITY, falsePositiveRate);
+    }
+    public boolean isEmpty(){return map.isEmpty();}
+    //O(1) for most missing keys, otherwise the get of the wrapped map
+    public Object get(Object key){
+        return filter.mightContain(key) ? map.get(key) : null;
+    }
+    //The remove of the wrapped map; the key stays in the filter
+    public Object remove(Object key){
+        if(isEmpty())
+            throw new EmptyMapException();
+        if(key == null)
+            throw new IllegalArgumentException();
+        return filter.mightContain(key) ? map.remove(key) : null;
+    }
+    //The put of the wrapped map, plus O(1) - amortized analysis
+    public Object put(Object key, Object value){
+        Object old = map.put(key, value);
+        if(old == null){
+            filter.add(key);
+            if(filter.count() > filter.expectedKeys())
+                rebuild();
+        }
+        return old;
+    }
+    public Object[] keys(){return map.keys();}
+    public BloomFilter filter(){return filter;}
+    private void rebuild(){
+        Object[] keys = map.keys();
+        filter = new BloomFilter(Math.max(2 * keys.length, INITIAL_CAPACITY), falsePositiveRate);
+        for(int i=0; i<keys.length; i++)
+            filter.add(keys[i]);
+    }
+}
+
+/**
+ * HashTable answering find through a BloomFilter of its keys before probing the wrapped table.
+ * A HashTable can not list its keys, so the filter can not be rebuilt: it is sized once for the
+ * expected number of keys, and the false positive rate grows if more keys are inserted.
+ * Removed keys stay in the filter. The wrapped table must be empty and not be modified directly afterwards.
+ * @author Scala28
+ */
+class BloomFilteredHashTable implements HashTable{
+    private final HashTable table;
+    private final BloomFilter filter;
+
+    /**
+     * @param table The empty table to wrap.
+     * @param expectedKeys Number of keys the filter is sized for.
+     * @param falsePositiveRate The probability that a missing key reaches the wrapped table, up to expectedKeys keys.
+     * @throws IllegalArgumentException If table is null or not empty, expectedKeys is negative
+     *          or falsePositiveRate is not in (0, 1).
+     */
+    public BloomFilteredHashTable(HashTable table, int expectedKeys, double falsePositiveRate){
+        if(table == null || !table.isEmpty())
+            throw new IllegalArgumentException();
+        this.table = table;
+        filter = new BloomFilter(expectedKeys, falsePositiveRate);
+    }
+    public void makeEmpty(){
+        table.makeEmpty();
+        filter.makeEmpty();
+    }
+    public boolean isEmpty(){return table.isEmpty();}
+    //O(1) plus the insert of the wrapped table
+    public void insert(Object key, Object value){
+        table.insert(key, value);
+        filter.add(key);
+    }
+    public void remove(Object key){
+        if(filter.mightContain(key))
+            table.remove(key);
+    }
+    //O(1) for most missing keys, otherwise the find of the wrapped table
+    public Object find(Object key){
+        return filter.mightContain(key) ? table.find(key) : null;
+    }
+    public BloomFilter filter(){return filter;}
+}
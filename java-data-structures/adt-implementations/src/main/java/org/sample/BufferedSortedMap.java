@@ -0,0 +1,319 @@
+package org.sample;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Write optimized implementation of SortedMap, in the manner of a log-structured merge tree.
+ * put and remove only touch a small sorted buffer; when the buffer is full it becomes a sorted run,
+ * and runs of equal size are merged like the carries of a binary counter, so that every association
+ * is copied O(log(n/bufferSize)) times instead of being shifted on every insertion.
+ * Removals are recorded as tombstones, dropped when they are merged into the oldest run.
+ * get searches the buffer and then the runs from the newest to the oldest, with a binary search each.
+ * The ordered queries compact everything into a single run first.
+ * @author Scala28
+ */
+class BufferedSortedMap implements SortedMap{
+    private static final int DEFAULT_BUFFER_SIZE = 128;
+    private static final int MAX_LEVELS = 32;
+    private static final Object TOMBSTONE = new Object();
+    private final int bufferSize;
+    private final int maxRuns;
+    private Comparable[] bufferKeys;
+    private Object[] bufferValues;
+    private int bufferCount;
+    //levels[i] is null or a run of at most bufferSize*2^i associations, newer than the runs of the next levels
+    private Run[] levels;
+    private int runs;
+    private int size;
+
+    public BufferedSortedMap(){
+        this(DEFAULT_BUFFER_SIZE, MAX_LEVELS);
+    }
+    /**
+     * @param bufferSize Associations kept in the write buffer before it is flushed to a run.
+     * @param maxRuns Runs allowed before all of them are compacted into one: fewer runs make get cheaper and put dearer.
+     * @throws IllegalArgumentException If bufferSize or maxRuns are not positive.
+     */
+    public BufferedSortedMap(int bufferSize, int maxRuns){
+        if(bufferSize <= 0 || maxRuns <= 0)
+            throw new IllegalArgumentException();
+        this.bufferSize = bufferSize;
+        this.maxRuns = maxRuns;
+        makeEmpty();
+    }
+    public void makeEmpty(){
+        bufferKeys = new Comparable[bufferSize];
+        bufferValues = new Object[bufferSize];
+        bufferCount = 0;
+        levels = new Run[MAX_LEVELS];
+        runs = 0;
+        size = 0;
+    }
+    public boolean isEmpty(){return size == 0;}
+    //O(log^2(n)): a binary search for every run
+    public Object get(Object key) throws IllegalArgumentException{
+        if(!(key instanceof Comparable))
+            throw new IllegalArgumentException();
+        Comparable k = (Comparable)key;
+        Object value = null;
+        int pos = search(bufferKeys, bufferCount, k);
+        if(pos >= 0)
+            value = bufferValues[pos];
+        for(int i=0; value == null && i<MAX_LEVELS; i++){
+            Run run = levels[i];
+            if(run != null && (pos = search(run.keys, run.size, k)) >= 0)
+                value = run.values[pos];
+        }
+        return value == TOMBSTONE ? null : value;
+    }
+    //O(log^2(n)) - amortized analysis
+    public Object put(Object key, Object value) throws IllegalArgumentException{
+        if(!(key instanceof Comparable) || value == null)
+            throw new IllegalArgumentException();
+        Object old = get(key);
+        if(old == null)
+            size++;
+        write((Comparable)key, value);
+        return old;
+    }
+    //O(log^2(n)) - amortized analysis
+    public Object remove(Object key) throws IllegalArgumentException{
+        if(isEmpty())
+            throw new EmptyMapException();
+        Object old = get(key);
+        if(old == null)
+            return null;
+        size--;
+        //Without runs there is nothing to shadow, the buffer entry can simply go
+        if(runs == 0){
+            int pos = search(bufferKeys, bufferCount, (Comparable)key);
+            System.arraycopy(bufferKeys, pos+1, bufferKeys, pos, bufferCount-pos-1);
+            System.arraycopy(bufferValues, pos+1, bufferValues, pos, bufferCount-pos-1);
+            bufferCount--;
+            bufferKeys[bufferCount] = null;
+            bufferValues[bufferCount] = null;
+        }else
+            write((Comparable)key, TOMBSTONE);
+        return old;
+    }
+    /**
+     * Merge the buffer and all the runs into a single run, dropping the tombstones.
+     */
+    //O(n)
+    public void compact(){
+        if(bufferCount == 0 && runs <= 1)
+            return;
+        Run run = flushBuffer();
+        for(int i=0; i<MAX_LEVELS; i++){
+            if(levels[i] != null){
+                run = merge(run, levels[i], false);
+                levels[i] = null;
+            }
+        }
+        run = merge(run, null, true);
+        runs = 0;
+        if(run.size > 0){
+            int i = 0;
+            while(((long)bufferSize << i) < run.size)
+                i++;
+            levels[i] = run;
+            runs = 1;
+        }
+    }
+    //O(n)
+    public Comparable floor(Comparable key){
+        Run run = compacted();
+        return run.keyAt(run.higherIndex(key)-1);
+    }
+    //O(n)
+    public Comparable ceiling(Comparable key){
+        Run run = compacted();
+        return run.keyAt(run.ceilingIndex(key));
+    }
+    //O(n)
+    public Comparable lower(Comparable key){
+        Run run = compacted();
+        return run.keyAt(run.ceilingIndex(key)-1);
+    }
+    //O(n)
+    public Comparable higher(Comparable key){
+        Run run = compacted();
+        return run.keyAt(run.higherIndex(key));
+    }
+    //O(n)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return compacted().keys[0];
+    }
+    //O(n)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        Run run = compacted();
+        return run.keys[run.size-1];
+    }
+    //O(n) to compact, then O(logn) to position the cursor and O(1) for every key
+    public Cursor range(Comparable from, Comparable to){
+        Run run = compacted();
+        int start = from == null ? 0 : run.ceilingIndex(from);
+        int end = to == null ? run.size : run.ceilingIndex(to);
+        return new RunCursor(run, start, end);
+    }
+    //O(n)
+    public Comparable[] sortedKeys(){
+        Run run = compacted();
+        return Arrays.copyOf(run.keys, run.size);
+    }
+    public Object[] keys(){
+        return sortedKeys();
+    }
+    //The only run left after compact(); an empty one if there are no associations
+    private Run compacted(){
+        compact();
+        for(int i=0; i<MAX_LEVELS; i++)
+            if(levels[i] != null)
+                return levels[i];
+        return new Run(new Comparable[0], new Object[0], 0);
+    }
+    private void write(Comparable key, Object value){
+        int pos = search(bufferKeys, bufferCount, key);
+        if(pos >= 0){
+            bufferValues[pos] = value;
+            return;
+        }
+        pos = -pos-1;
+        System.arraycopy(bufferKeys, pos, bufferKeys, pos+1, bufferCount-pos);
+        System.arraycopy(bufferValues, pos, bufferValues, pos+1, bufferCount-pos);
+        bufferKeys[pos] = key;
+        bufferValues[pos] = value;
+        bufferCount++;
+        if(bufferCount == bufferSize)
+            flush();
+    }
+    //Turns the buffer into a run and carries it up the levels, merging the runs it meets
+    private void flush(){
+        Run run = flushBuffer();
+        int i = 0;
+        while(levels[i] != null){
+            run = merge(run, levels[i], isOldest(i));
+            levels[i] = null;
+            runs--;
+            i++;
+        }
+        if(i == 0 && runs == 0)
+            run = merge(run, null, true);
+        levels[i] = run;
+        runs++;
+        if(runs > maxRuns)
+            compact();
+    }
+    private Run flushBuffer(){
+        Run run = new Run(Arrays.copyOf(bufferKeys, bufferCount), Arrays.copyOf(bufferValues, bufferCount), bufferCount);
+        Arrays.fill(bufferKeys, 0, bufferCount, null);
+        Arrays.fill(bufferValues, 0, bufferCount, null);
+        bufferCount = 0;
+        return run;
+    }
+    private boolean isOldest(int level){
+        for(int i=level+1; i<MAX_LEVELS; i++)
+            if(levels[i] != null)
+                return false;
+        return true;
+    }
+    //Merges two runs, taking the value of newer for the keys found in both; older may be null
+    @SuppressWarnings("unchecked")
+    private static Run merge(Run newer, Run older, boolean dropTombstones){
+        int olderSize = older == null ? 0 : older.size;
+        Comparable[] keys = new Comparable[newer.size + olderSize];
+        Object[] values = new Object[keys.length];
+        int i = 0, j = 0, n = 0;
+        while(i < newer.size || j < olderSize){
+            Comparable key;
+            Object value;
+            int cmp = i == newer.size ? 1 : j == olderSize ? -1 : newer.keys[i].compareTo(older.keys[j]);
+            if(cmp <= 0){
+                key = newer.keys[i];
+                value = newer.values[i++];
+                if(cmp == 0)
+                    j++;
+            }else{
+                key = older.keys[j];
+                value = older.values[j++];
+            }
+            if(dropTombstones && value == TOMBSTONE)
+                continue;
+            keys[n] = key;
+            values[n++] = value;
+        }
+        return new Run(keys, values, n);
+    }
+    //Position of the key, or -(insertion point)-1 if it is not found
+    @SuppressWarnings("unchecked")
+    private static int search(Comparable[] keys, int size, Comparable key){
+        int low = 0, high = size-1;
+        while(low <= high){
+            int mid = (low+high) >>> 1;
+            int cmp = keys[mid].compareTo(key);
+            if(cmp < 0)
+                low = mid+1;
+            else if(cmp > 0)
+                high = mid-1;
+            else
+                return mid;
+        }
+        return -(low+1);
+    }
+
+    private static class Run{
+        private final Comparable[] keys;
+        private final Object[] values;
+        private final int size;
+        public Run(Comparable[] keys, Object[] values, int size){
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+        //Index of the first key greater than or equal to the given one
+        public int ceilingIndex(Comparable key){
+            if(key == null)
+                throw new IllegalArgumentException();
+            int pos = search(keys, size, key);
+            return pos >= 0 ? pos : -pos-1;
+        }
+        //Index of the first key strictly greater than the given one
+        public int higherIndex(Comparable key){
+            if(key == null)
+                throw new IllegalArgumentException();
+            int pos = search(keys, size, key);
+            return pos >= 0 ? pos+1 : -pos-1;
+        }
+        public Comparable keyAt(int i){
+            return i >= 0 && i < size ? keys[i] : null;
+        }
+    }
+    private static class RunCursor implements Cursor{
+        private final Run run;
+        private int next;
+        private int current = -1;
+        private final int end;
+        public RunCursor(Run run, int start, int end){
+            this.run = run;
+            next = start;
+            this.end = end;
+        }
+        public boolean hasNext(){return next < end;}
+        public Comparable next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            current = next++;
+            return run.keys[current];
+        }
+        public Object getValue(){
+            if(current < 0)
+                throw new IllegalStateException();
+            return run.values[current];
+        }
+    }
+}
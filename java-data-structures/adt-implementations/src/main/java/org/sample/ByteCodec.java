@@ -0,0 +1,86 @@
+package org.sample;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts objects to bytes and back, for containers that keep their data outside of the heap.
+ * Two objects are considered equal by such containers if and only if their encodings are equal.
+ */
+public interface ByteCodec {
+    /**
+     * @param obj The object to encode.
+     * @return The bytes representing the object.
+     * @throws IllegalArgumentException If the object can not be encoded by this codec.
+     */
+    byte[] encode(Object obj);
+
+    /**
+     * @param bytes Bytes previously returned by encode.
+     * @return The decoded object.
+     */
+    Object decode(byte[] bytes);
+}
+
+/**
+ * Codec for byte[] objects, which are stored as they are.
+ * @author Scala28
+ */
+class ByteArrayCodec implements ByteCodec{
+    public byte[] encode(Object obj){
+        if(!(obj instanceof byte[]))
+            throw new IllegalArgumentException();
+        return (byte[])obj;
+    }
+    public Object decode(byte[] bytes){
+        return bytes;
+    }
+}
+
+/**
+ * Codec for String objects, encoded as UTF-8.
+ * @author Scala28
+ */
+class StringCodec implements ByteCodec{
+    public byte[] encode(Object obj){
+        if(!(obj instanceof String))
+            throw new IllegalArgumentException();
+        return ((String)obj).getBytes(StandardCharsets.UTF_8);
+    }
+    public Object decode(byte[] bytes){
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+/**
+ * Codec for any Serializable object, using Java serialization.
+ * @author Scala28
+ */
+class SerializableCodec implements ByteCodec{
+    public byte[] encode(Object obj){
+        if(!(obj instanceof Serializable))
+            throw new IllegalArgumentException();
+        try{
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(obj);
+            out.close();
+            return bytes.toByteArray();
+        }catch(IOException ex){
+            throw new IllegalArgumentException(ex);
+        }
+    }
+    public Object decode(byte[] bytes){
+        try{
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            return in.readObject();
+        }catch(IOException | ClassNotFoundException ex){
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package org.sample;
+
+/**
+ * Size bounded implementation of Map meant to be used as a cache, evicting with the W-TinyLFU policy.
+ * New entries enter a small LRU window (1% of the capacity). Entries pushed out of the window are
+ * candidates for the main space, a segmented LRU made of a probation and a protected segment (80% of
+ * the main space): a candidate is admitted only if a frequency sketch estimates it was accessed more
+ * often than the entry it would evict, so that a burst of one-off keys can not flush the popular ones.
+ * Entries hit again in probation are promoted to protected, the least recent protected ones are demoted
+ * back to probation. Every operation is O(1): a hash lookup and a few list splices.
+ * Capacity is measured by a Weigher, one unit per entry by default.
+ * All methods are synchronized, but get(key, loader) releases the lock while loading.
+ * Null values are not allowed, because get returns null for missing keys.
+ * @author Scala28
+ */
+class CacheMap implements Map{
+    //Percent of the capacity given to the window, and of the main space given to the protected segment
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    private static final Weigher SINGLETON = new Weigher(){
+        public int weigh(Object key, Object value){return 1;}
+    };
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+    private final Weigher weigher;
+    private HashTable index;
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedSegment = new AccessOrder();
+    private final FrequencySketch sketch = new FrequencySketch();
+    //Keys being loaded by get(key, loader), mapped to the thread loading them
+    private final HashTable loading = new OpenHashTable();
+    private int size;
+    private long hitCount;
+    private long missCount;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private long evictionCount;
+    private long evictionWeight;
+
+    /**
+     * @param maximumSize Maximum number of entries.
+     * @throws IllegalArgumentException If maximumSize is not positive.
+     */
+    public CacheMap(long maximumSize){
+        this(maximumSize, SINGLETON);
+    }
+    /**
+     * @param maximumWeight Maximum total weight of the entries.
+     * @param weigher Function giving the weight of every entry.
+     * @throws IllegalArgumentException If maximumWeight is not positive or weigher is null.
+     */
+    public CacheMap(long maximumWeight, Weigher weigher){
+        if(maximumWeight <= 0 || weigher == null)
+            throw new IllegalArgumentException();
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        windowMaximum = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+        mainMaximum = maximumWeight - windowMaximum;
+        protectedMaximum = mainMaximum * PROTECTED_PERCENT / 100;
+        makeEmpty();
+    }
+    //Statistics are kept, only the entries and their frequencies are dropped
+    public synchronized void makeEmpty(){
+        index = new OpenHashTable();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        sketch.clear();
+        size = 0;
+    }
+    public synchronized boolean isEmpty(){return size == 0;}
+    public synchronized int size(){return size;}
+    /**
+     * @return The total weight of the entries.
+     */
+    public synchronized long weightedSize(){
+        return window.weight + probation.weight + protectedSegment.weight;
+    }
+    //O(1)
+    public synchronized Object get(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        Node node = (Node)index.find(key);
+        sketch.increment(key);
+        if(node == null){
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+    /**
+     * Get the value associated to the given key, loading it if it is not cached.
+     * The loader is called without holding the lock, and at most once at a time for the same key:
+     * other threads asking for that key wait for the load instead of calling the backend themselves.
+     * If the key is put while it is being loaded, the value put wins over the loaded one.
+     * @param key The key associated to the researched value.
+     * @param loader Function computing the value of the key on a miss.
+     * @return The value associated to the given key; null if it is not cached and the loader returned null.
+     * @throws IllegalArgumentException If the key or the loader are null.
+     */
+    //O(1) plus the cost of the loader on a miss
+    public Object get(Object key, Loader loader) throws IllegalArgumentException{
+        if(key == null || loader == null)
+            throw new IllegalArgumentException();
+        synchronized(this){
+            while(true){
+                Object value = get(key);
+                if(value != null)
+                    return value;
+                //A failed load leaves the key to the next thread, which tries on its own
+                if(loading.find(key) == null)
+                    break;
+                //The miss is counted once, by the thread that ends up loading
+                missCount--;
+                waitForLoad();
+            }
+            loading.insert(key, Thread.currentThread());
+        }
+        Object value = null;
+        try{
+            value = loader.load(key);
+        }finally{
+            synchronized(this){
+                loading.remove(key);
+                if(value == null)
+                    loadFailureCount++;
+                else{
+                    loadSuccessCount++;
+                    Node node = (Node)index.find(key);
+                    if(node != null)
+                        value = node.value;
+                    else
+                        insert(key, value);
+                }
+                notifyAll();
+            }
+        }
+        return value;
+    }
+    //O(1)
+    public synchronized Object remove(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        if(isEmpty())
+            throw new EmptyMapException();
+        Node node = (Node)index.find(key);
+        if(node == null)
+            return null;
+        index.remove(key);
+        node.queue.unlink(node);
+        size--;
+        return node.value;
+    }
+    //O(1) - amortized analysis
+    public synchronized Object put(Object key, Object value) throws IllegalArgumentException{
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        sketch.increment(key);
+        Node node = (Node)index.find(key);
+        if(node == null){
+            insert(key, value);
+            return null;
+        }
+        Object old = node.value;
+        int weight = weigh(key, value);
+        node.queue.weight += weight - node.weight;
+        node.weight = weight;
+        node.value = value;
+        onAccess(node);
+        evict();
+        return old;
+    }
+    public synchronized Object[] keys(){
+        Object[] keys = new Object[size];
+        int i = 0;
+        i = protectedSegment.copyKeys(keys, i);
+        i = probation.copyKeys(keys, i);
+        window.copyKeys(keys, i);
+        return keys;
+    }
+    /**
+     * @return A snapshot of the hit, miss, load and eviction counters.
+     */
+    public synchronized Stats stats(){
+        return new Stats(hitCount, missCount, loadSuccessCount, loadFailureCount, evictionCount, evictionWeight);
+    }
+    private int weigh(Object key, Object value){
+        int weight = weigher.weigh(key, value);
+        if(weight < 0)
+            throw new IllegalArgumentException();
+        return weight;
+    }
+    private void insert(Object key, Object value){
+        Node node = new Node(key, value, weigh(key, value));
+        index.insert(key, node);
+        size++;
+        sketch.ensureCapacity(size);
+        window.linkFirst(node);
+        evict();
+    }
+    private void onAccess(Node node){
+        if(node.queue == probation){
+            probation.unlink(node);
+            protectedSegment.linkFirst(node);
+        }else
+            node.queue.moveToFront(node);
+    }
+    //Restores the limits of every segment, after an insertion or a weight change
+    private void evict(){
+        while(protectedSegment.weight > protectedMaximum){
+            Node node = protectedSegment.last();
+            protectedSegment.unlink(node);
+            probation.linkFirst(node);
+        }
+        while(window.weight > windowMaximum){
+            Node candidate = window.last();
+            window.unlink(candidate);
+            admit(candidate);
+        }
+        //The window may be left under its limit with the main space over it, if main entries grew heavier
+        while(weightedSize() > maximumWeight){
+            Node victim = probation.last();
+            if(victim == null)
+                victim = protectedSegment.last();
+            if(victim == null)
+                victim = window.last();
+            victim.queue.unlink(victim);
+            discard(victim);
+        }
+    }
+    //Moves a candidate out of the window into probation, if it is worth more than the entries it would evict
+    private void admit(Node candidate){
+        int frequency = sketch.frequency(candidate.key);
+        while(probation.weight + protectedSegment.weight + candidate.weight > mainMaximum){
+            Node victim = probation.last();
+            if(victim == null)
+                victim = protectedSegment.last();
+            if(victim == null || frequency <= sketch.frequency(victim.key)){
+                discard(candidate);
+                return;
+            }
+            victim.queue.unlink(victim);
+            discard(victim);
+        }
+        probation.linkFirst(candidate);
+    }
+    //Drops an entry already unlinked from its segment
+    private void discard(Node node){
+        index.remove(node.key);
+        size--;
+        evictionCount++;
+        evictionWeight += node.weight;
+    }
+    private void waitForLoad(){
+        try{
+            wait();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Function giving the weight of an entry, for example the size of the value in bytes.
+     */
+    public interface Weigher{
+        /**
+         * @return The weight of the entry, not negative. It is computed once, when the entry is put.
+         */
+        int weigh(Object key, Object value);
+    }
+    /**
+     * Function computing the value of a key missing from the cache, usually by asking a slower backend.
+     */
+    public interface Loader{
+        /**
+         * @return The value of the key; null if the key has no value, in which case nothing is cached.
+         */
+        Object load(Object key);
+    }
+    /**
+     * Counters of a CacheMap since its creation.
+     */
+    public static class Stats{
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long evictionCount;
+        private final long evictionWeight;
+        public Stats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                     long evictionCount, long evictionWeight){
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+        }
+        public long hitCount(){return hitCount;}
+        public long missCount(){return missCount;}
+        public long requestCount(){return hitCount + missCount;}
+        /**
+         * @return Fraction of the gets that found their key; 1 if there were no gets.
+         */
+        public double hitRate(){
+            long requests = requestCount();
+            return requests == 0 ? 1.0 : (double)hitCount / requests;
+        }
+        public long loadSuccessCount(){return loadSuccessCount;}
+        //Loads returning null or throwing
+        public long loadFailureCount(){return loadFailureCount;}
+        public long evictionCount(){return evictionCount;}
+        public long evictionWeight(){return evictionWeight;}
+        public String toString(){
+            return "Stats{hits=" + hitCount + ", misses=" + missCount + ", loadSuccesses=" + loadSuccessCount
+                    + ", loadFailures=" + loadFailureCount + ", evictions=" + evictionCount
+                    + ", evictionWeight=" + evictionWeight + "}";
+        }
+    }
+
+    private static class Node{
+        private final Object key;
+        private Object value;
+        private int weight;
+        private AccessOrder queue;
+        private Node prev;
+        private Node next;
+        public Node(Object key, Object value, int weight){
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+    //Circular doubly linked list of the nodes of a segment, from the most to the least recently used
+    private static class AccessOrder{
+        private final Node sentinel = new Node(null, null, 0);
+        private long weight;
+        public AccessOrder(){
+            clear();
+        }
+        public void clear(){
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            weight = 0;
+        }
+        public void linkFirst(Node node){
+            node.queue = this;
+            node.prev = sentinel;
+            node.next = sentinel.next;
+            sentinel.next.prev = node;
+            sentinel.next = node;
+            weight += node.weight;
+        }
+        public void unlink(Node node){
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            weight -= node.weight;
+        }
+        public void moveToFront(Node node){
+            unlink(node);
+            linkFirst(node);
+        }
+        //The least recently used node; null if the segment is empty
+        public Node last(){
+            return sentinel.prev == sentinel ? null : sentinel.prev;
+        }
+        public int copyKeys(Object[] keys, int i){
+            for(Node node = sentinel.next; node != sentinel; node = node.next)
+                keys[i++] = node.key;
+            return i;
+        }
+    }
+}
+
+/**
+ * Count-min sketch estimating how often keys were seen, with 4 bit counters that saturate at 15.
+ * Each key increments one counter in each of 4 rows; its estimate is the least of them, which can only
+ * overcount because of collisions. Every long packs 16 counters, and the 4 counters of a key are taken
+ * from the same 4 nibble group of different longs.
+ * Once the increments reach ten times the number of counters per row, all the counters are halved,
+ * so that the estimates follow the recent popularity of the keys instead of their whole history.
+ * @author Scala28
+ */
+class FrequencySketch{
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int INITIAL_CAPACITY = 16;
+    private long[] table;
+    private int sampleSize;
+    private int additions;
+
+    public FrequencySketch(){
+        clear();
+    }
+    public void clear(){
+        table = new long[INITIAL_CAPACITY];
+        sampleSize = 10 * INITIAL_CAPACITY;
+        additions = 0;
+    }
+    /**
+     * Grow the sketch to fit the given number of keys; the frequencies seen so far are lost.
+     */
+    public void ensureCapacity(int expectedKeys){
+        if(expectedKeys <= table.length || table.length >= 1 << 30)
+            return;
+        table = new long[Integer.highestOneBit(expectedKeys - 1) << 1];
+        sampleSize = (int)Math.min(10L * table.length, Integer.MAX_VALUE);
+        additions = 0;
+    }
+    //O(1)
+    public int frequency(Object key){
+        int hash = HashStrategy.MIX.hash(key);
+        int start = (hash & 3) << 2;
+        int frequency = 15;
+        for(int i=0; i<4; i++){
+            int offset = (start + i) << 2;
+            frequency = Math.min(frequency, (int)((table[indexOf(hash, i)] >>> offset) & 15));
+        }
+        return frequency;
+    }
+    //O(1) - amortized analysis over the halvings
+    public void increment(Object key){
+        int hash = HashStrategy.MIX.hash(key);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for(int i=0; i<4; i++){
+            int index = indexOf(hash, i);
+            int offset = (start + i) << 2;
+            if(((table[index] >>> offset) & 15) != 15){
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if(added && ++additions == sampleSize)
+            reset();
+    }
+    private void reset(){
+        int odd = 0;
+        for(int i=0; i<table.length; i++){
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        //Every odd counter lost half an increment, shared among the 4 counters of a key
+        additions = (additions - (odd >>> 2)) >>> 1;
+    }
+    private int indexOf(int hash, int i){
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int)h & (table.length - 1);
+    }
+}
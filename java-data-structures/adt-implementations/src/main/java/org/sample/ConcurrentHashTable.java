@@ -0,0 +1,250 @@
+package org.sample;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe implementation of HashTable using lock striping.
+ * Keys are spread over a fixed number of segments, each one owning its own chained bucket array
+ * and its own lock: writers only lock the segment of the key, while readers never lock and
+ * traverse the chains through volatile reads.
+ * Every segment grows on its own, so a resize never holds more than one stripe.
+ * Null values are not allowed, because find returns null for missing keys.
+ * @author Scala28
+ */
+class ConcurrentHashTable implements HashTable{
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final HashStrategy strategy;
+
+    public ConcurrentHashTable(){
+        this(INITIAL_CAPACITY * DEFAULT_SEGMENTS, DEFAULT_SEGMENTS);
+    }
+    public ConcurrentHashTable(int dim){
+        this(dim, DEFAULT_SEGMENTS);
+    }
+    /**
+     * @param dim Initial number of buckets, shared among the segments.
+     * @param concurrencyLevel Expected number of concurrent writers; rounded up to a power of two segments.
+     * @throws IllegalArgumentException If dim or concurrencyLevel are not positive.
+     */
+    public ConcurrentHashTable(int dim, int concurrencyLevel){
+        this(dim, concurrencyLevel, HashStrategy.MIX);
+    }
+    /**
+     * @param strategy The function used to hash the keys; its result is further spread over segments and buckets.
+     */
+    public ConcurrentHashTable(int dim, int concurrencyLevel, HashStrategy strategy){
+        if(dim <= 0 || concurrencyLevel <= 0 || strategy == null)
+            throw new IllegalArgumentException();
+        this.strategy = strategy;
+        int n = powerOfTwo(Math.min(concurrencyLevel, MAX_SEGMENTS));
+        segments = new Segment[n];
+        segmentShift = 32 - Integer.numberOfTrailingZeros(n);
+        int segmentDim = powerOfTwo(Math.max(dim / n, 2));
+        for(int i=0; i<n; i++)
+            segments[i] = new Segment(segmentDim);
+    }
+    //Locks one segment at a time, writers on other segments are never blocked all together
+    public void makeEmpty(){
+        for(int i=0; i<segments.length; i++)
+            segments[i].clear();
+    }
+    public boolean isEmpty(){
+        for(int i=0; i<segments.length; i++)
+            if(segments[i].count != 0)
+                return false;
+        return true;
+    }
+    //O(1)
+    public void insert(Object key, Object value) throws IllegalArgumentException{
+        if(value == null)
+            throw new IllegalArgumentException();
+        int hash = hash(key);
+        segmentFor(hash).put(key, hash, value, false);
+    }
+    //O(1)
+    public void remove(Object key) throws IllegalArgumentException{
+        int hash = hash(key);
+        segmentFor(hash).compute(key, hash, null);
+    }
+    //O(1), lock free
+    public Object find(Object key) throws IllegalArgumentException{
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+    /**
+     * Atomically add the association if the key is not already present.
+     * @return The value already associated to the key; null if the given value has been inserted.
+     * @throws IllegalArgumentException If the key or the value are null.
+     */
+    public Object putIfAbsent(Object key, Object value){
+        if(value == null)
+            throw new IllegalArgumentException();
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+    /**
+     * Atomically replace the value associated to the key with the one computed by the given function.
+     * The function is called while holding the segment lock, so it must be short and must not access the table.
+     * @param remapping Receives the key and the current value (null if missing); returning null removes the association.
+     * @return The new value associated to the key; null if no association is left.
+     * @throws IllegalArgumentException If the key or the function are null.
+     */
+    public Object compute(Object key, Remapping remapping){
+        if(remapping == null)
+            throw new IllegalArgumentException();
+        int hash = hash(key);
+        return segmentFor(hash).compute(key, hash, remapping);
+    }
+    public float loadFactor(){
+        long count = 0, dim = 0;
+        for(int i=0; i<segments.length; i++){
+            count += segments[i].count;
+            dim += segments[i].table.length();
+        }
+        return (count + 0.0f) / dim;
+    }
+    private Segment segmentFor(int hash){
+        //Segments use the high bits, buckets the low ones
+        return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+    }
+    private int hash(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        int h = strategy.hash(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    private static int powerOfTwo(int n){
+        int p = 1;
+        while(p < n)
+            p <<= 1;
+        return p;
+    }
+
+    /**
+     * Function used by compute to derive the new value of an association.
+     */
+    public interface Remapping{
+        Object apply(Object key, Object oldValue);
+    }
+
+    private static class Segment extends ReentrantLock{
+        //Only written while holding the lock; volatile so that readers see the latest published array
+        private volatile AtomicReferenceArray<Node> table;
+        private volatile int count;
+        private int threshold;
+
+        public Segment(int dim){
+            setTable(new AtomicReferenceArray<Node>(dim));
+        }
+        public Object get(Object key, int hash){
+            AtomicReferenceArray<Node> t = table;
+            for(Node e = t.get(hash & (t.length()-1)); e != null; e = e.next)
+                if(e.hash == hash && e.key.equals(key))
+                    return e.value;
+            return null;
+        }
+        public Object put(Object key, int hash, Object value, boolean onlyIfAbsent){
+            lock();
+            try{
+                AtomicReferenceArray<Node> t = table;
+                int index = hash & (t.length()-1);
+                Node first = t.get(index);
+                for(Node e = first; e != null; e = e.next){
+                    if(e.hash == hash && e.key.equals(key)){
+                        Object old = e.value;
+                        if(!onlyIfAbsent)
+                            e.value = value;
+                        return old;
+                    }
+                }
+                t.set(index, new Node(key, hash, value, first));
+                count = count + 1;
+                if(count > threshold)
+                    grow();
+                return null;
+            }finally{
+                unlock();
+            }
+        }
+        public Object compute(Object key, int hash, Remapping remapping){
+            lock();
+            try{
+                AtomicReferenceArray<Node> t = table;
+                int index = hash & (t.length()-1);
+                Node previous = null;
+                Node e = t.get(index);
+                while(e != null && !(e.hash == hash && e.key.equals(key))){
+                    previous = e;
+                    e = e.next;
+                }
+                Object value = remapping == null ? null : remapping.apply(key, e != null ? e.value : null);
+                if(value != null){
+                    if(e != null)
+                        e.value = value;
+                    else{
+                        t.set(index, new Node(key, hash, value, t.get(index)));
+                        count = count + 1;
+                        if(count > threshold)
+                            grow();
+                    }
+                }else if(e != null){
+                    //Readers already past the removed node still see a consistent chain
+                    if(previous == null)
+                        t.set(index, e.next);
+                    else
+                        previous.next = e.next;
+                    count = count - 1;
+                }
+                return value;
+            }finally{
+                unlock();
+            }
+        }
+        public void clear(){
+            lock();
+            try{
+                AtomicReferenceArray<Node> t = table;
+                for(int i=0; i<t.length(); i++)
+                    t.set(i, null);
+                count = 0;
+            }finally{
+                unlock();
+            }
+        }
+        //Called with the lock held. Nodes are copied, because readers may still be walking the old chains.
+        private void grow(){
+            AtomicReferenceArray<Node> oldTable = table;
+            AtomicReferenceArray<Node> newTable = new AtomicReferenceArray<Node>(oldTable.length()*2);
+            int mask = newTable.length()-1;
+            for(int i=0; i<oldTable.length(); i++){
+                for(Node e = oldTable.get(i); e != null; e = e.next){
+                    int index = e.hash & mask;
+                    newTable.set(index, new Node(e.key, e.hash, e.value, newTable.get(index)));
+                }
+            }
+            setTable(newTable);
+        }
+        private void setTable(AtomicReferenceArray<Node> t){
+            threshold = (int)(t.length() * MAX_LOAD_FACTOR);
+            table = t;
+        }
+    }
+    private static class Node{
+        private final Object key;
+        private final int hash;
+        private volatile Object value;
+        private volatile Node next;
+        public Node(Object key, int hash, Object value, Node next){
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
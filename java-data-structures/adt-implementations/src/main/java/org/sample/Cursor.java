@@ -0,0 +1,64 @@
+package org.sample;
+
+/**
+ * Forward iterator over a range of a sorted container, reading the container in place.
+ * The container must not be modified while the cursor is in use.
+ */
+interface Cursor{
+    boolean hasNext();
+    /**
+     * Move to the next entry of the range.
+     * @return The key of the entry.
+     * @throws java.util.NoSuchElementException If the range has no more entries.
+     */
+    Comparable next();
+    /**
+     * @return The value of the entry returned by the last call to next: the value for maps,
+     *          all the values for dictionaries, the element itself for sets.
+     * @throws IllegalStateException If next has not been called yet.
+     */
+    Object getValue();
+}
+
+/**
+ * Ordered queries shared by the sorted containers. Keys are compared with compareTo.
+ */
+interface Navigable{
+    /**
+     * @return The greatest key less than or equal to the given key; null if there is no such key.
+     * @throws IllegalArgumentException If the given key is null.
+     */
+    Comparable floor(Comparable key);
+    /**
+     * @return The least key greater than or equal to the given key; null if there is no such key.
+     * @throws IllegalArgumentException If the given key is null.
+     */
+    Comparable ceiling(Comparable key);
+    /**
+     * @return The greatest key strictly less than the given key; null if there is no such key.
+     * @throws IllegalArgumentException If the given key is null.
+     */
+    Comparable lower(Comparable key);
+    /**
+     * @return The least key strictly greater than the given key; null if there is no such key.
+     * @throws IllegalArgumentException If the given key is null.
+     */
+    Comparable higher(Comparable key);
+    /**
+     * @return The smallest key.
+     * @throws RuntimeException If the container is empty: EmptyMapException, EmptySetException or EmptyDictionaryException.
+     */
+    Comparable first();
+    /**
+     * @return The greatest key.
+     * @throws RuntimeException If the container is empty, as for first.
+     */
+    Comparable last();
+    /**
+     * Iterate over the keys in [from, to) in ascending order, without copying them.
+     * @param from The first key of the range, inclusive; null for no lower bound.
+     * @param to The end of the range, exclusive; null for no upper bound.
+     * @return A cursor over the range; empty if from is not less than to.
+     */
+    Cursor range(Comparable from, Comparable to);
+}
@@ -1,5 +1,7 @@
 package org.sample;
 
+import java.util.NoSuchElementException;
+
 /**
  * Dictionary realize a mapping function between the key set and the value set.
  */
@@ -53,7 +55,7 @@ public interface Dictionary extends Container {
 /**
  * Inherits from Dictionary all the properties. Objects are kept in order.
  */
-interface SortedDictionary extends Dictionary{
+interface SortedDictionary extends Dictionary, Navigable{
     /**
      * Add a new association key-value to the dictionary.
      * @param key
@@ -192,6 +194,179 @@ class ArrayDictionary implements Dictionary{
     }
 }
 
+/**
+ * Implementation using open addressing with linear probing, keeping the values of every key
+ * in a compact array. Every operation performs a single hash probe.
+ * @author Scala28
+ */
+class HashDictionary implements Dictionary{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final int INITIAL_VALUES = 1;
+    private Object[] keys;
+    private int[] hashes;
+    private Object[][] values;
+    private int[] vSizes;
+    private int count;
+    private final HashStrategy strategy;
+
+    public HashDictionary(){
+        this(INITIAL_CAPACITY, HashStrategy.MIX);
+    }
+    public HashDictionary(int dim){
+        this(dim, HashStrategy.MIX);
+    }
+    public HashDictionary(int dim, HashStrategy strategy){
+        if(dim <= 0 || strategy == null)
+            throw new IllegalArgumentException();
+        this.strategy = strategy;
+        int n = 2;
+        while(n < dim / MAX_LOAD_FACTOR)
+            n <<= 1;
+        allocate(n);
+    }
+    public void makeEmpty(){
+        for(int i=0; i<keys.length; i++){
+            keys[i] = null;
+            values[i] = null;
+        }
+        count = 0;
+    }
+    public boolean isEmpty(){return count == 0;}
+    //O(1) - amortized analysis
+    public void insert(Object key, Object value){
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        int hash = strategy.hash(key);
+        int index = hash & (keys.length-1);
+        while(keys[index] != null){
+            if(hashes[index] == hash && keys[index].equals(key)){
+                addValue(index, value);
+                return;
+            }
+            index = (index+1) & (keys.length-1);
+        }
+        keys[index] = key;
+        hashes[index] = hash;
+        values[index] = new Object[INITIAL_VALUES];
+        vSizes[index] = 0;
+        addValue(index, value);
+        if(++count > keys.length * MAX_LOAD_FACTOR)
+            grow();
+    }
+    //O(1)
+    public Object remove(Object key){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        int index = indexOf(key);
+        if(index < 0)
+            return null;
+        Object[] v = values[index];
+        Object ret = v[0];
+        v[0] = v[--vSizes[index]];
+        v[vSizes[index]] = null;
+        if(vSizes[index] == 0)
+            removeAt(index);
+        return ret;
+    }
+    //O(1)
+    public Object[] removeAll(Object key){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        int index = indexOf(key);
+        if(index < 0)
+            return null;
+        Object[] ret = getValues(index);
+        removeAt(index);
+        return ret;
+    }
+    //O(1)
+    public Object find(Object key){
+        int index = indexOf(key);
+        return index >= 0 ? values[index][0] : null;
+    }
+    //O(1)
+    public Object[] findAll(Object key){
+        int index = indexOf(key);
+        return index >= 0 ? getValues(index) : new Object[]{};
+    }
+    public Object[] keys(){
+        Object[] ret = new Object[count];
+        int j = 0;
+        for(int i=0; i<keys.length; i++)
+            if(keys[i] != null)
+                ret[j++] = keys[i];
+        return ret;
+    }
+    private int indexOf(Object key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int hash = strategy.hash(key);
+        int index = hash & (keys.length-1);
+        while(keys[index] != null){
+            if(hashes[index] == hash && keys[index].equals(key))
+                return index;
+            index = (index+1) & (keys.length-1);
+        }
+        return -1;
+    }
+    private void addValue(int index, Object value){
+        if(vSizes[index] == values[index].length)
+            values[index] = ArrayUtil.resize(values[index], values[index].length*2);
+        values[index][vSizes[index]++] = value;
+    }
+    private Object[] getValues(int index){
+        Object[] ret = new Object[vSizes[index]];
+        System.arraycopy(values[index], 0, ret, 0, vSizes[index]);
+        return ret;
+    }
+    //Moves back every following key whose probe sequence passes through the freed slot
+    private void removeAt(int free){
+        count--;
+        int mask = keys.length-1;
+        int index = free;
+        while(true){
+            index = (index+1) & mask;
+            if(keys[index] == null)
+                break;
+            int home = hashes[index] & mask;
+            if(((index - home) & mask) >= ((index - free) & mask)){
+                keys[free] = keys[index];
+                hashes[free] = hashes[index];
+                values[free] = values[index];
+                vSizes[free] = vSizes[index];
+                free = index;
+            }
+        }
+        keys[free] = null;
+        values[free] = null;
+    }
+    private void grow(){
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Object[][] oldValues = values;
+        int[] oldSizes = vSizes;
+        allocate(oldKeys.length*2);
+        for(int i=0; i<oldKeys.length; i++){
+            if(oldKeys[i] == null)
+                continue;
+            int index = oldHashes[i] & (keys.length-1);
+            while(keys[index] != null)
+                index = (index+1) & (keys.length-1);
+            keys[index] = oldKeys[i];
+            hashes[index] = oldHashes[i];
+            values[index] = oldValues[i];
+            vSizes[index] = oldSizes[i];
+        }
+    }
+    private void allocate(int length){
+        keys = new Object[length];
+        hashes = new int[length];
+        values = new Object[length][];
+        vSizes = new int[length];
+    }
+}
+
 /**
  * Implementation of SortedDictionary using simple array with dynamic dimension.
  * @author Scala28
@@ -236,7 +411,7 @@ class ArraySortedDictionary implements SortedDictionary{
             throw new EmptyDictionaryException();
         if(find(key) != null)
         {
-            int pos = binarySearch(0, pSize, (Comparable)key);
+            int pos = binarySearch(0, pSize-1, (Comparable)key);
             Object ret = p[pos].remove();
             if(p[pos].vSize == 0){
                 for(int i=pos; i<pSize-1; i++){
@@ -282,6 +457,32 @@ class ArraySortedDictionary implements SortedDictionary{
             return p[pos].getValues();
         else return new Object[]{};
     }
+    //O(logn)
+    public Comparable floor(Comparable key){return keyAt(higherIndex(key)-1);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return keyAt(ceilingIndex(key));}
+    //O(logn)
+    public Comparable lower(Comparable key){return keyAt(ceilingIndex(key)-1);}
+    //O(logn)
+    public Comparable higher(Comparable key){return keyAt(higherIndex(key));}
+    //O(1)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        return p[0].getKey();
+    }
+    //O(1)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        return p[pSize-1].getKey();
+    }
+    //O(logn) to position the cursor, O(1) for every key
+    public Cursor range(Comparable from, Comparable to){
+        int start = from == null ? 0 : ceilingIndex(from);
+        int end = to == null ? pSize : ceilingIndex(to);
+        return new RangeCursor(start, end);
+    }
     public Comparable[] sortedKeys(){
         Comparable[] keys = new Comparable[pSize];
         for(int i=0; i<pSize; i++){
@@ -290,9 +491,10 @@ class ArraySortedDictionary implements SortedDictionary{
         return keys;
     }
     public Object[] keys(){return sortedKeys();}
+    //Position of the key, or -(insertion point)-1 if it is not found
     private int binarySearch(int low, int high, Comparable target){
         if(low > high)
-            return -1;
+            return -(low+1);
         int mid = low + (high-low)/2;
         if(p[mid].getKey().compareTo(target) == 0)
             return mid;
@@ -301,6 +503,44 @@ class ArraySortedDictionary implements SortedDictionary{
         else
             return binarySearch(mid+1, high, target);
     }
+    //Index of the first key greater than or equal to the given one
+    private int ceilingIndex(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int pos = binarySearch(0, pSize-1, key);
+        return pos >= 0 ? pos : -pos-1;
+    }
+    //Index of the first key strictly greater than the given one
+    private int higherIndex(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int pos = binarySearch(0, pSize-1, key);
+        return pos >= 0 ? pos+1 : -pos-1;
+    }
+    private Comparable keyAt(int i){
+        return i >= 0 && i < pSize ? p[i].getKey() : null;
+    }
+    private class RangeCursor implements Cursor{
+        private int next;
+        private int current = -1;
+        private final int end;
+        public RangeCursor(int start, int end){
+            next = start;
+            this.end = end;
+        }
+        public boolean hasNext(){return next < end;}
+        public Comparable next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            current = next++;
+            return p[current].getKey();
+        }
+        public Object getValue(){
+            if(current < 0)
+                throw new IllegalStateException();
+            return p[current].getValues();
+        }
+    }
     public class Pair{
         private Comparable key;
         private Object[] values;
@@ -329,3 +569,121 @@ class ArraySortedDictionary implements SortedDictionary{
         }
     }
 }
+
+/**
+ * Implementation of SortedDictionary using a B+-tree, mapping every key to the list of its values.
+ * @author Scala28
+ */
+class BPlusTreeDictionary implements SortedDictionary{
+    private final BPlusTree tree;
+    public BPlusTreeDictionary(){
+        tree = new BPlusTree();
+        makeEmpty();
+    }
+    public void makeEmpty(){tree.clear();}
+    public boolean isEmpty(){return tree.isEmpty();}
+    public void insert(Object key, Object value) throws IllegalArgumentException{
+        if(!(key instanceof Comparable))
+            throw new IllegalArgumentException();
+        insert((Comparable)key, value);
+    }
+    //O(logn)
+    public void insert(Comparable key, Object value){
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        Values values = (Values)tree.get(key);
+        if(values == null){
+            values = new Values();
+            tree.put(key, values);
+        }
+        values.add(value);
+    }
+    //O(logn)
+    public Object remove(Object key){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        Values values = (Values)tree.get(comparable(key));
+        if(values == null)
+            return null;
+        Object ret = values.remove();
+        if(values.size == 0)
+            tree.remove((Comparable)key);
+        return ret;
+    }
+    //O(logn)
+    public Object[] removeAll(Object key){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        Values values = (Values)tree.remove(comparable(key));
+        return values != null ? values.toArray() : null;
+    }
+    //O(logn)
+    public Object find(Object key){
+        Values values = (Values)tree.get(comparable(key));
+        return values != null ? values.values[0] : null;
+    }
+    //O(logn)
+    public Object[] findAll(Object key){
+        Values values = (Values)tree.get(comparable(key));
+        return values != null ? values.toArray() : new Object[]{};
+    }
+    //O(logn)
+    public Comparable floor(Comparable key){return tree.floor(key);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return tree.ceiling(key);}
+    //O(logn)
+    public Comparable lower(Comparable key){return tree.lower(key);}
+    //O(logn)
+    public Comparable higher(Comparable key){return tree.higher(key);}
+    //O(1)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        return tree.first();
+    }
+    //O(logn)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptyDictionaryException();
+        return tree.last();
+    }
+    //O(logn) to position the cursor, O(1) for every key
+    public Cursor range(Comparable from, Comparable to){
+        final Cursor cursor = tree.range(from, to);
+        return new Cursor(){
+            public boolean hasNext(){return cursor.hasNext();}
+            public Comparable next(){return cursor.next();}
+            public Object getValue(){return ((Values)cursor.getValue()).toArray();}
+        };
+    }
+    //O(n), walking the linked leaves
+    public Comparable[] sortedKeys(){return tree.keys();}
+    public Object[] keys(){return sortedKeys();}
+    private static Comparable comparable(Object key) throws IllegalArgumentException{
+        if(!(key instanceof Comparable))
+            throw new IllegalArgumentException();
+        return (Comparable)key;
+    }
+    private static class Values{
+        private static final int INITIAL_CAPACITY = 1;
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+        public void add(Object value){
+            if(size == values.length)
+                values = ArrayUtil.resize(values, values.length*2);
+            values[size++] = value;
+        }
+        //Same policy of the other dictionaries: the first value goes, the last one takes its place
+        public Object remove(){
+            Object ret = values[0];
+            values[0] = values[size-1];
+            values[--size] = null;
+            return ret;
+        }
+        public Object[] toArray(){
+            Object[] ret = new Object[size];
+            System.arraycopy(values, 0, ret, 0, size);
+            return ret;
+        }
+    }
+}
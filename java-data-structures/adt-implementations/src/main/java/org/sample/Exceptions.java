@@ -9,5 +9,10 @@ class FullDequeException extends RuntimeException{}
 class EmptyDequeException extends RuntimeException{}
 class InvalidKeyTableException extends RuntimeException{}
 class EmptyMapException extends RuntimeException{}
+class EmptySetException extends RuntimeException{}
 class EmptyDictionaryException extends RuntimeException{}
 class EmptyLinkedListException extends RuntimeException{}
+class StorageException extends RuntimeException{
+    StorageException(String message){super(message);}
+    StorageException(Throwable cause){super(cause);}
+}
@@ -0,0 +1,281 @@
+package org.sample;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of Map whose entries expire a given time after they are put.
+ * Expired entries are never returned: get checks the expiration time of the entry it finds.
+ * They are also removed, through a hierarchical timing wheel (see TimingWheel) advanced by put,
+ * remove and cleanUp, so that reaping costs O(1) amortized for every entry instead of a scan of the map.
+ * Time is read from a Clock, which can be replaced to make expiration deterministic.
+ * Null values are not allowed, because get returns null for missing keys.
+ * @author Scala28
+ */
+class ExpiringMap implements Map{
+    private final long timeToLive;
+    private final Clock clock;
+    //Times are kept relative to the creation of the map, so that they are never negative
+    private final long origin;
+    private final HashTable index = new OpenHashTable();
+    private final TimingWheel wheel = new TimingWheel();
+    private int size;
+
+    /**
+     * @param timeToLive Time after which the entries added by put(key, value) expire.
+     * @throws IllegalArgumentException If timeToLive is not positive or unit is null.
+     */
+    public ExpiringMap(long timeToLive, TimeUnit unit){
+        this(timeToLive, unit, Clock.SYSTEM);
+    }
+    /**
+     * @param clock The source of time.
+     * @throws IllegalArgumentException If timeToLive is not positive, or unit or clock are null.
+     */
+    public ExpiringMap(long timeToLive, TimeUnit unit, Clock clock){
+        if(timeToLive <= 0 || unit == null || clock == null)
+            throw new IllegalArgumentException();
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.clock = clock;
+        origin = clock.nanoTime();
+    }
+    public void makeEmpty(){
+        index.makeEmpty();
+        wheel.clear();
+        size = 0;
+    }
+    //O(1) - amortized analysis
+    public boolean isEmpty(){
+        cleanUp();
+        return size == 0;
+    }
+    /**
+     * @return The number of entries, including the ones expired since the last reaping that are still to be removed.
+     */
+    public int size(){return size;}
+    //O(1)
+    public Object get(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        Node node = (Node)index.find(key);
+        return node == null || isExpired(node, now()) ? null : node.value;
+    }
+    //O(1) - amortized analysis
+    public Object remove(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        if(isEmpty())
+            throw new EmptyMapException();
+        Node node = (Node)index.find(key);
+        if(node == null)
+            return null;
+        index.remove(key);
+        wheel.unlink(node);
+        size--;
+        return isExpired(node, wheel.time()) ? null : node.value;
+    }
+    //O(1) - amortized analysis
+    public Object put(Object key, Object value) throws IllegalArgumentException{
+        return put(key, value, timeToLive, TimeUnit.NANOSECONDS);
+    }
+    /**
+     * Add a new association key-value to the map, expiring after the given time.
+     * @return The old value associated to the given key; null if no live association was found.
+     * @throws IllegalArgumentException If the key or the value are null, if timeToLive is not positive or unit is null.
+     */
+    //O(1) - amortized analysis
+    public Object put(Object key, Object value, long timeToLive, TimeUnit unit) throws IllegalArgumentException{
+        if(key == null || value == null || timeToLive <= 0 || unit == null)
+            throw new IllegalArgumentException();
+        long now = now();
+        advance(now);
+        //Saturates instead of overflowing, such entries simply never expire in practice
+        long expiration = now + Math.min(unit.toNanos(timeToLive), Long.MAX_VALUE / 2);
+        Node node = (Node)index.find(key);
+        Object old = null;
+        if(node == null){
+            node = new Node(key);
+            index.insert(key, node);
+            size++;
+        }else{
+            wheel.unlink(node);
+            if(!isExpired(node, now))
+                old = node.value;
+        }
+        node.value = value;
+        node.expiration = expiration;
+        wheel.schedule(node);
+        return old;
+    }
+    //O(n)
+    public Object[] keys(){
+        cleanUp();
+        Object[] keys = new Object[size];
+        int n = wheel.copyLiveKeys(keys, wheel.time());
+        return n == size ? keys : Arrays.copyOf(keys, n);
+    }
+    /**
+     * Remove all the entries expired so far, except the ones that expired during the current tick
+     * of the wheel, which are removed by one of the next reapings.
+     */
+    //O(1) - amortized analysis for every removed entry
+    public void cleanUp(){
+        advance(now());
+    }
+    private long now(){
+        return clock.nanoTime() - origin;
+    }
+    private void advance(long now){
+        Node expired = wheel.advance(now);
+        while(expired != null){
+            index.remove(expired.key);
+            size--;
+            Node next = expired.next;
+            expired.next = null;
+            expired = next;
+        }
+    }
+    private static boolean isExpired(Node node, long now){
+        return node.expiration - now <= 0;
+    }
+
+    /**
+     * Source of time for ExpiringMap.
+     */
+    public interface Clock{
+        Clock SYSTEM = new Clock(){
+            public long nanoTime(){return System.nanoTime();}
+        };
+        /**
+         * @return The current time in nanoseconds, from an arbitrary origin. It must never go backwards.
+         */
+        long nanoTime();
+    }
+
+    private static class Node{
+        private final Object key;
+        private Object value;
+        private long expiration;
+        private Node prev;
+        private Node next;
+        public Node(Object key){
+            this.key = key;
+        }
+    }
+
+    /**
+     * Hierarchical timing wheel over the nodes of an ExpiringMap.
+     * Level i is a ring of 64 buckets, each covering a tick of 2^(20+6i) nanoseconds (about 1ms, 67ms,
+     * 4s, 5m, 5h, 13d), so that a level spans one tick of the next. A node is put in the bucket of its
+     * expiration at the lowest level whose span covers the time left. When the time moves past the buckets
+     * of a level, their nodes are expired if due, otherwise moved down to a finer level: every node moves
+     * at most once per level, which makes the reaping O(1) amortized.
+     * Nodes further away than the last level wait in its buckets and are rescheduled when they are visited.
+     */
+    private static class TimingWheel{
+        private static final int LEVELS = 6;
+        private static final int BUCKETS = 64;
+        private static final int TICK_SHIFT = 20;
+        private static final int LEVEL_SHIFT = 6;
+        //buckets[level][i] is the sentinel of a circular doubly linked list
+        private final Node[][] buckets;
+        private long time;
+
+        public TimingWheel(){
+            buckets = new Node[LEVELS][BUCKETS];
+            for(int level=0; level<LEVELS; level++)
+                for(int i=0; i<BUCKETS; i++){
+                    Node sentinel = new Node(null);
+                    sentinel.prev = sentinel;
+                    sentinel.next = sentinel;
+                    buckets[level][i] = sentinel;
+                }
+        }
+        public void clear(){
+            for(int level=0; level<LEVELS; level++)
+                for(int i=0; i<BUCKETS; i++){
+                    buckets[level][i].prev = buckets[level][i];
+                    buckets[level][i].next = buckets[level][i];
+                }
+        }
+        //The time of the last advance
+        public long time(){return time;}
+        //O(1)
+        public void schedule(Node node){
+            Node sentinel = bucketOf(node.expiration);
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+        }
+        //O(1)
+        public void unlink(Node node){
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+        /**
+         * Move the wheel to the given time.
+         * @return The nodes expired in the meantime, chained through next; null if there are none.
+         */
+        public Node advance(long now){
+            long previous = time;
+            if(now - previous <= 0)
+                return null;
+            time = now;
+            Node expired = null;
+            for(int level=0; level<LEVELS; level++){
+                int shift = shift(level);
+                long previousTicks = previous >>> shift;
+                long delta = (now >>> shift) - previousTicks;
+                if(delta <= 0)
+                    break;
+                //The bucket just entered is visited too, so that its nodes are moved down before they are due
+                long count = Math.min(delta + 1, BUCKETS);
+                for(long i=0; i<count; i++)
+                    expired = visit(buckets[level][(int)((previousTicks + i) & (BUCKETS-1))], expired);
+            }
+            return expired;
+        }
+        //Copies the keys of the nodes still alive at the given time, O(n)
+        public int copyLiveKeys(Object[] keys, long now){
+            int n = 0;
+            for(int level=0; level<LEVELS; level++)
+                for(int i=0; i<BUCKETS; i++){
+                    Node sentinel = buckets[level][i];
+                    for(Node node = sentinel.next; node != sentinel; node = node.next)
+                        if(!isExpired(node, now))
+                            keys[n++] = node.key;
+                }
+            return n;
+        }
+        //Empties a bucket, pushing its due nodes on the expired chain and rescheduling the others
+        private Node visit(Node sentinel, Node expired){
+            Node node = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while(node != sentinel){
+                Node next = node.next;
+                if(isExpired(node, time)){
+                    node.prev = null;
+                    node.next = expired;
+                    expired = node;
+                }else
+                    schedule(node);
+                node = next;
+            }
+            return expired;
+        }
+        private Node bucketOf(long expiration){
+            long remaining = expiration - time;
+            int level = 0;
+            while(level < LEVELS-1 && remaining >= 1L << shift(level+1))
+                level++;
+            return buckets[level][(int)((expiration >>> shift(level)) & (BUCKETS-1))];
+        }
+        private static int shift(int level){
+            return TICK_SHIFT + LEVEL_SHIFT * level;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.sample;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted index in Eytzinger layout, used by FrozenSortedMap and FrozenSortedSet.
+ * Keys are stored in breadth-first order of the implicit binary search tree over them (the root
+ * at 1, the children of k at 2k and 2k+1), so the first levels of every search share the same few
+ * cache lines and the two candidates of the next level are adjacent in memory.
+ * The search loop is written without data dependent branches: every level adds the result of one
+ * comparison to the index, and the answer is decoded from the trailing bits at the end.
+ * When all the keys are Integer or Long they are unboxed into a primitive array, so that
+ * comparisons do not chase a pointer per level.
+ * @author Scala28
+ */
+class EytzingerIndex{
+    private final int n;
+    private final int[] ints;
+    private final long[] longs;
+    private final Comparable[] keys;
+    private final Object[] values;
+
+    /**
+     * @param sortedKeys Distinct keys in ascending order.
+     * @param sortedValues The values of the keys, in the same order; null to index keys only.
+     * @param n Number of keys to take from the arrays.
+     */
+    public EytzingerIndex(Comparable[] sortedKeys, Object[] sortedValues, int n){
+        this.n = n;
+        boolean allInts = n > 0, allLongs = n > 0;
+        for(int i=0; i<n; i++){
+            allInts &= sortedKeys[i] instanceof Integer;
+            allLongs &= sortedKeys[i] instanceof Long;
+        }
+        ints = allInts ? new int[n+1] : null;
+        longs = allLongs && !allInts ? new long[n+1] : null;
+        keys = ints == null && longs == null ? new Comparable[n+1] : null;
+        values = sortedValues != null ? new Object[n+1] : null;
+        fill(sortedKeys, sortedValues, 0, 1);
+    }
+    public int size(){return n;}
+    //O(logn), the slot of the key or 0 if it is not found
+    public int find(Comparable key){
+        int k = lowerBound(key);
+        return k != 0 && compareAt(k, key) == 0 ? k : 0;
+    }
+    //O(logn), the slot of the first key greater than or equal to the given one; 0 if there is none
+    @SuppressWarnings("unchecked")
+    public int lowerBound(Comparable key){
+        int k = 1;
+        if(ints != null){
+            int x = (Integer)key;
+            while(k <= n)
+                k = 2*k + (ints[k] < x ? 1 : 0);
+        }else if(longs != null){
+            long x = (Long)key;
+            while(k <= n)
+                k = 2*k + (longs[k] < x ? 1 : 0);
+        }else{
+            while(k <= n)
+                k = 2*k + (keys[k].compareTo(key) < 0 ? 1 : 0);
+        }
+        return decode(k);
+    }
+    //O(logn), the slot of the first key strictly greater than the given one; 0 if there is none
+    @SuppressWarnings("unchecked")
+    public int upperBound(Comparable key){
+        int k = 1;
+        if(ints != null){
+            int x = (Integer)key;
+            while(k <= n)
+                k = 2*k + (ints[k] <= x ? 1 : 0);
+        }else if(longs != null){
+            long x = (Long)key;
+            while(k <= n)
+                k = 2*k + (longs[k] <= x ? 1 : 0);
+        }else{
+            while(k <= n)
+                k = 2*k + (keys[k].compareTo(key) <= 0 ? 1 : 0);
+        }
+        return decode(k);
+    }
+    //O(logn), the slot of the smallest key; 0 if the index is empty
+    public int first(){
+        if(n == 0)
+            return 0;
+        int k = 1;
+        while(2*k <= n)
+            k = 2*k;
+        return k;
+    }
+    //O(logn), the slot of the greatest key; 0 if the index is empty
+    public int last(){
+        if(n == 0)
+            return 0;
+        int k = 1;
+        while(2*k+1 <= n)
+            k = 2*k+1;
+        return k;
+    }
+    //O(1) - amortized analysis over a full scan, the slot of the next key in order; 0 after the last one
+    public int successor(int k){
+        if(2*k+1 <= n){
+            k = 2*k+1;
+            while(2*k <= n)
+                k = 2*k;
+            return k;
+        }
+        //Climb while k is a right child, the parent of the first left child is the successor
+        while((k & 1) == 1)
+            k >>= 1;
+        return k >> 1;
+    }
+    //O(1) - amortized analysis over a full scan, the slot of the previous key in order; 0 before the first one
+    public int predecessor(int k){
+        if(2*k <= n){
+            k = 2*k;
+            while(2*k+1 <= n)
+                k = 2*k+1;
+            return k;
+        }
+        while(k > 1 && (k & 1) == 0)
+            k >>= 1;
+        return k >> 1;
+    }
+    //O(logn)
+    public Comparable floor(Comparable key){
+        int k = upperBound(checked(key));
+        return keyOrNull(k != 0 ? predecessor(k) : last());
+    }
+    //O(logn)
+    public Comparable ceiling(Comparable key){return keyOrNull(lowerBound(checked(key)));}
+    //O(logn)
+    public Comparable lower(Comparable key){
+        int k = lowerBound(checked(key));
+        return keyOrNull(k != 0 ? predecessor(k) : last());
+    }
+    //O(logn)
+    public Comparable higher(Comparable key){return keyOrNull(upperBound(checked(key)));}
+    //O(logn) to position the cursor, O(1) - amortized analysis for every key
+    @SuppressWarnings("unchecked")
+    public Cursor range(Comparable from, Comparable to){
+        if(from != null && to != null && from.compareTo(to) >= 0)
+            return new IndexCursor(0, 0);
+        int start = from == null ? first() : lowerBound(from);
+        int end = to == null ? 0 : lowerBound(to);
+        return new IndexCursor(start, end);
+    }
+    public Comparable keyAt(int k){
+        if(ints != null)
+            return ints[k];
+        if(longs != null)
+            return longs[k];
+        return keys[k];
+    }
+    //The value of the slot; the key itself when only keys are indexed
+    public Object valueAt(int k){
+        return values != null ? values[k] : keyAt(k);
+    }
+    //The keys in ascending order
+    public Comparable[] sortedKeys(){
+        Comparable[] sorted = new Comparable[n];
+        int i = 0;
+        for(int k = first(); k != 0; k = successor(k))
+            sorted[i++] = keyAt(k);
+        return sorted;
+    }
+    private Comparable keyOrNull(int k){
+        return k != 0 ? keyAt(k) : null;
+    }
+    private static Comparable checked(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        return key;
+    }
+    @SuppressWarnings("unchecked")
+    private int compareAt(int k, Comparable key){
+        if(ints != null)
+            return Integer.compare(ints[k], (Integer)key);
+        if(longs != null)
+            return Long.compare(longs[k], (Long)key);
+        return keys[k].compareTo(key);
+    }
+    //The search went right after every key less than the target, then left past a leaf: the slot it
+    //last went left at, found by dropping the trailing ones and the final zero, is the lower bound
+    private static int decode(int k){
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+    //In-order visit of the implicit tree, placing the i-th smallest key at the visited slot
+    private int fill(Comparable[] sortedKeys, Object[] sortedValues, int i, int k){
+        if(k > n)
+            return i;
+        i = fill(sortedKeys, sortedValues, i, 2*k);
+        if(ints != null)
+            ints[k] = (Integer)sortedKeys[i];
+        else if(longs != null)
+            longs[k] = (Long)sortedKeys[i];
+        else
+            keys[k] = sortedKeys[i];
+        if(values != null)
+            values[k] = sortedValues[i];
+        return fill(sortedKeys, sortedValues, i+1, 2*k+1);
+    }
+
+    //Walks the slots in key order, from start up to end excluded (0 for the end of the index)
+    private class IndexCursor implements Cursor{
+        private final int end;
+        private int next;
+        private int current;
+        public IndexCursor(int start, int end){
+            next = start;
+            this.end = end;
+        }
+        public boolean hasNext(){return next != 0 && next != end;}
+        public Comparable next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            current = next;
+            next = successor(next);
+            return keyAt(current);
+        }
+        public Object getValue(){
+            if(current == 0)
+                throw new IllegalStateException();
+            return valueAt(current);
+        }
+    }
+}
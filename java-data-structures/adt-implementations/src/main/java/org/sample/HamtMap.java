@@ -0,0 +1,335 @@
+package org.sample;
+
+import java.util.Arrays;
+
+/**
+ * Persistent implementation of Map as a compressed hash array mapped trie (CHAMP).
+ * Every node branches on 5 bits of the hash: a bitmap of the entries stored inline and a bitmap of the
+ * subnodes select the used slots of a compact array, entries first and subnodes last.
+ * Nodes are never modified: an update copies the O(log32 n) nodes on the path to the key and shares
+ * all the others with the previous version. with and without return a new version leaving this one
+ * untouched, snapshot is O(1), and put and remove replace the current version of this map.
+ * Readers never lock: a version is published through a volatile field and never changes afterwards,
+ * so a snapshot can be handed to any number of threads. Writers must be serialized by the caller.
+ * Null values are not allowed, because get returns null for missing keys.
+ * @author Scala28
+ */
+class HamtMap implements Map{
+    private static final Version EMPTY = new Version(new BitmapNode(0, 0, new Object[0]), 0);
+    private volatile Version version;
+
+    public HamtMap(){
+        version = EMPTY;
+    }
+    private HamtMap(Version version){
+        this.version = version;
+    }
+    public void makeEmpty(){version = EMPTY;}
+    public boolean isEmpty(){return version.size == 0;}
+    public int size(){return version.size;}
+    //O(log32 n)
+    public Object get(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        return version.root.get(key, hash(key), 0);
+    }
+    //O(log32 n)
+    public Object remove(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        Version current = version;
+        if(current.size == 0)
+            throw new EmptyMapException();
+        Result result = new Result();
+        version = without(current, key, result);
+        return result.old;
+    }
+    //O(log32 n)
+    public Object put(Object key, Object value) throws IllegalArgumentException{
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        Result result = new Result();
+        version = with(version, key, value, result);
+        return result.old;
+    }
+    /**
+     * @return A new map with the given association added, sharing all the unchanged nodes with this one,
+     *          which is left as it is.
+     * @throws IllegalArgumentException If the key or the value are null.
+     */
+    //O(log32 n)
+    public HamtMap with(Object key, Object value){
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        return new HamtMap(with(version, key, value, new Result()));
+    }
+    /**
+     * @return A new map without the given key, sharing all the unchanged nodes with this one,
+     *          which is left as it is.
+     * @throws IllegalArgumentException If the key is null.
+     */
+    //O(log32 n)
+    public HamtMap without(Object key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        return new HamtMap(without(version, key, new Result()));
+    }
+    /**
+     * @return A map with the current associations, unaffected by the later updates of this one and vice versa.
+     */
+    //O(1)
+    public HamtMap snapshot(){
+        return new HamtMap(version);
+    }
+    //O(n)
+    public Object[] keys(){
+        Version current = version;
+        Object[] keys = new Object[current.size];
+        current.root.copyKeys(keys, 0);
+        return keys;
+    }
+    private static Version with(Version current, Object key, Object value, Result result){
+        Node root = current.root.put(key, value, hash(key), 0, result);
+        if(root == current.root)
+            return current;
+        return new Version(root, result.old == null ? current.size + 1 : current.size);
+    }
+    private static Version without(Version current, Object key, Result result){
+        Node root = current.root.remove(key, hash(key), 0, result);
+        if(root == current.root)
+            return current;
+        return new Version(root, current.size - 1);
+    }
+    private static int hash(Object key){
+        return HashStrategy.MIX.hash(key);
+    }
+
+    //The root and the size of a version, published together
+    private static class Version{
+        private final Node root;
+        private final int size;
+        public Version(Node root, int size){
+            this.root = root;
+            this.size = size;
+        }
+    }
+    //The value replaced or removed by an update, null if there was none
+    private static class Result{
+        private Object old;
+    }
+
+    private abstract static class Node{
+        //Hash bits consumed by every level; after 7 levels all the 32 bits are used
+        protected static final int BITS = 5;
+        protected static final int MAX_SHIFT = 32;
+        public abstract Object get(Object key, int hash, int shift);
+        //Return this if nothing changed
+        public abstract Node put(Object key, Object value, int hash, int shift, Result result);
+        public abstract Node remove(Object key, int hash, int shift, Result result);
+        public abstract int copyKeys(Object[] keys, int i);
+        //True for a node holding a single entry and no subnodes, which the parent stores inline
+        public abstract boolean isSingleton();
+        public abstract Object keyAt(int i);
+        public abstract Object valueAt(int i);
+    }
+
+    private static class BitmapNode extends Node{
+        private final int dataMap;
+        private final int nodeMap;
+        //Keys and values of the entries in pairs from the start, subnodes in reverse order from the end
+        private final Object[] content;
+        public BitmapNode(int dataMap, int nodeMap, Object[] content){
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+        public Object get(Object key, int hash, int shift){
+            int bit = bit(hash, shift);
+            if((dataMap & bit) != 0){
+                int i = index(dataMap, bit);
+                return key.equals(content[2*i]) ? content[2*i+1] : null;
+            }
+            if((nodeMap & bit) != 0)
+                return nodeAt(index(nodeMap, bit)).get(key, hash, shift + BITS);
+            return null;
+        }
+        public Node put(Object key, Object value, int hash, int shift, Result result){
+            int bit = bit(hash, shift);
+            if((dataMap & bit) != 0){
+                int i = index(dataMap, bit);
+                Object k = content[2*i];
+                if(key.equals(k)){
+                    result.old = content[2*i+1];
+                    if(result.old == value)
+                        return this;
+                    Object[] x = content.clone();
+                    x[2*i+1] = value;
+                    return new BitmapNode(dataMap, nodeMap, x);
+                }
+                Node sub = merge(k, content[2*i+1], HamtMap.hash(k), key, value, hash, shift + BITS);
+                return dataToNode(bit, i, sub);
+            }
+            if((nodeMap & bit) != 0){
+                int i = index(nodeMap, bit);
+                Node sub = nodeAt(i);
+                Node newSub = sub.put(key, value, hash, shift + BITS, result);
+                return newSub == sub ? this : replaceNode(i, newSub);
+            }
+            int i = index(dataMap, bit);
+            Object[] x = new Object[content.length + 2];
+            System.arraycopy(content, 0, x, 0, 2*i);
+            x[2*i] = key;
+            x[2*i+1] = value;
+            System.arraycopy(content, 2*i, x, 2*i+2, content.length - 2*i);
+            return new BitmapNode(dataMap | bit, nodeMap, x);
+        }
+        public Node remove(Object key, int hash, int shift, Result result){
+            int bit = bit(hash, shift);
+            if((dataMap & bit) != 0){
+                int i = index(dataMap, bit);
+                if(!key.equals(content[2*i]))
+                    return this;
+                result.old = content[2*i+1];
+                //A single entry left below the root is handed to the parent, which inlines it
+                if(shift > 0 && Integer.bitCount(dataMap) == 2 && nodeMap == 0){
+                    int other = 1 - i;
+                    Object k = content[2*other];
+                    return new BitmapNode(bit(HamtMap.hash(k), 0), 0, new Object[]{k, content[2*other+1]});
+                }
+                Object[] x = new Object[content.length - 2];
+                System.arraycopy(content, 0, x, 0, 2*i);
+                System.arraycopy(content, 2*i+2, x, 2*i, content.length - 2*i - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap, x);
+            }
+            if((nodeMap & bit) != 0){
+                int i = index(nodeMap, bit);
+                Node sub = nodeAt(i);
+                Node newSub = sub.remove(key, hash, shift + BITS, result);
+                if(newSub == sub)
+                    return this;
+                if(!newSub.isSingleton())
+                    return replaceNode(i, newSub);
+                //A node made only of the singleton would be inlined by its parent as well
+                if(shift > 0 && dataMap == 0 && Integer.bitCount(nodeMap) == 1)
+                    return newSub;
+                return nodeToData(bit, i, newSub.keyAt(0), newSub.valueAt(0));
+            }
+            return this;
+        }
+        public int copyKeys(Object[] keys, int n){
+            int data = Integer.bitCount(dataMap);
+            for(int i=0; i<data; i++)
+                keys[n++] = content[2*i];
+            for(int i=Integer.bitCount(nodeMap)-1; i>=0; i--)
+                n = nodeAt(i).copyKeys(keys, n);
+            return n;
+        }
+        public boolean isSingleton(){return nodeMap == 0 && Integer.bitCount(dataMap) == 1;}
+        public Object keyAt(int i){return content[2*i];}
+        public Object valueAt(int i){return content[2*i+1];}
+        private Node nodeAt(int i){
+            return (Node)content[content.length - 1 - i];
+        }
+        private Node replaceNode(int i, Node node){
+            Object[] x = content.clone();
+            x[content.length - 1 - i] = node;
+            return new BitmapNode(dataMap, nodeMap, x);
+        }
+        //Replaces the entry i with a subnode holding it and the colliding entry
+        private Node dataToNode(int bit, int i, Node node){
+            int j = index(nodeMap, bit);
+            Object[] x = new Object[content.length - 1];
+            System.arraycopy(content, 0, x, 0, 2*i);
+            System.arraycopy(content, 2*i+2, x, 2*i, content.length - 2*i - 2 - j);
+            x[x.length - 1 - j] = node;
+            System.arraycopy(content, content.length - j, x, x.length - j, j);
+            return new BitmapNode(dataMap ^ bit, nodeMap | bit, x);
+        }
+        //Replaces the subnode i with the single entry left in it
+        private Node nodeToData(int bit, int i, Object key, Object value){
+            int j = index(dataMap, bit);
+            Object[] x = new Object[content.length + 1];
+            System.arraycopy(content, 0, x, 0, 2*j);
+            x[2*j] = key;
+            x[2*j+1] = value;
+            System.arraycopy(content, 2*j, x, 2*j+2, content.length - 2*j - 1 - i);
+            System.arraycopy(content, content.length - i, x, x.length - i, i);
+            return new BitmapNode(dataMap | bit, nodeMap ^ bit, x);
+        }
+        private static int bit(int hash, int shift){
+            return 1 << ((hash >>> shift) & 31);
+        }
+        //Position among the set bits of the map
+        private static int index(int map, int bit){
+            return Integer.bitCount(map & (bit - 1));
+        }
+        //A subnode holding two entries, deep enough for their hashes to differ
+        private static Node merge(Object k1, Object v1, int h1, Object k2, Object v2, int h2, int shift){
+            if(shift >= MAX_SHIFT)
+                return new CollisionNode(h1, new Object[]{k1, v1, k2, v2});
+            int m1 = (h1 >>> shift) & 31, m2 = (h2 >>> shift) & 31;
+            if(m1 != m2){
+                Object[] x = m1 < m2 ? new Object[]{k1, v1, k2, v2} : new Object[]{k2, v2, k1, v1};
+                return new BitmapNode(1 << m1 | 1 << m2, 0, x);
+            }
+            return new BitmapNode(0, 1 << m1, new Object[]{merge(k1, v1, h1, k2, v2, h2, shift + BITS)});
+        }
+    }
+
+    //Entries whose 32 hash bits are all equal, searched linearly
+    private static class CollisionNode extends Node{
+        private final int hash;
+        private final Object[] content;
+        public CollisionNode(int hash, Object[] content){
+            this.hash = hash;
+            this.content = content;
+        }
+        public Object get(Object key, int hash, int shift){
+            int i = indexOf(key);
+            return i >= 0 ? content[i+1] : null;
+        }
+        public Node put(Object key, Object value, int hash, int shift, Result result){
+            int i = indexOf(key);
+            if(i >= 0){
+                result.old = content[i+1];
+                if(result.old == value)
+                    return this;
+                Object[] x = content.clone();
+                x[i+1] = value;
+                return new CollisionNode(this.hash, x);
+            }
+            Object[] x = Arrays.copyOf(content, content.length + 2);
+            x[content.length] = key;
+            x[content.length+1] = value;
+            return new CollisionNode(this.hash, x);
+        }
+        public Node remove(Object key, int hash, int shift, Result result){
+            int i = indexOf(key);
+            if(i < 0)
+                return this;
+            result.old = content[i+1];
+            if(content.length == 4){
+                int other = 2 - i;
+                return new BitmapNode(BitmapNode.bit(hash, 0), 0, new Object[]{content[other], content[other+1]});
+            }
+            Object[] x = new Object[content.length - 2];
+            System.arraycopy(content, 0, x, 0, i);
+            System.arraycopy(content, i+2, x, i, content.length - i - 2);
+            return new CollisionNode(this.hash, x);
+        }
+        public int copyKeys(Object[] keys, int n){
+            for(int i=0; i<content.length; i+=2)
+                keys[n++] = content[i];
+            return n;
+        }
+        public boolean isSingleton(){return false;}
+        public Object keyAt(int i){return content[2*i];}
+        public Object valueAt(int i){return content[2*i+1];}
+        private int indexOf(Object key){
+            for(int i=0; i<content.length; i+=2)
+                if(key.equals(content[i]))
+                    return i;
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.sample;
+
+import java.security.SecureRandom;
+
+/**
+ * Function used by hash based containers to turn a key into a hash, before mapping it to a table index.
+ */
+public interface HashStrategy {
+    /**
+     * The key's own hashCode, unchanged.
+     */
+    HashStrategy DEFAULT = new DefaultHashStrategy();
+    /**
+     * The key's hashCode scrambled by the Murmur3 finalizer, so that every input bit affects every output bit.
+     * byte[] keys are hashed by content.
+     */
+    HashStrategy MIX = new MixingHashStrategy();
+
+    /**
+     * @param key The key to hash, not null.
+     * @return The hash of the key. Equal keys must have equal hashes.
+     */
+    int hash(Object key);
+}
+
+/**
+ * Implementation returning the key's hashCode.
+ * @author Scala28
+ */
+class DefaultHashStrategy implements HashStrategy{
+    public int hash(Object key){
+        return key.hashCode();
+    }
+}
+
+/**
+ * Implementation applying the Murmur3 finalizer to the key's hashCode.
+ * Sequential or strided keys are spread over the whole table, but keys with equal hashCode still collide.
+ * @author Scala28
+ */
+class MixingHashStrategy implements HashStrategy{
+    private static final int BYTES_SEED = 0x9747B28C;
+
+    public int hash(Object key){
+        if(key instanceof byte[])
+            return Hashing.murmur3((byte[])key, BYTES_SEED);
+        return Hashing.mix(key.hashCode());
+    }
+}
+
+/**
+ * Implementation using SipHash-2-4 with a random key chosen for every instance, meant for untrusted input.
+ * String, byte[], Integer and Long keys are hashed by content, so colliding inputs can not be crafted
+ * without knowing the key. Other keys fall back to a seeded mix of their hashCode, which still
+ * collides for keys with equal hashCode.
+ * Hashes differ between instances, so they must never be persisted.
+ * @author Scala28
+ */
+class SeededHashStrategy implements HashStrategy{
+    private final long k0;
+    private final long k1;
+
+    public SeededHashStrategy(){
+        this(new SecureRandom());
+    }
+    public SeededHashStrategy(java.util.Random random){
+        k0 = random.nextLong();
+        k1 = random.nextLong();
+    }
+    public int hash(Object key){
+        byte[] bytes;
+        if(key instanceof byte[])
+            bytes = (byte[])key;
+        else if(key instanceof String)
+            bytes = chars((String)key);
+        else if(key instanceof Integer)
+            bytes = Hashing.bytes(((Integer)key).longValue());
+        else if(key instanceof Long)
+            bytes = Hashing.bytes((Long)key);
+        else
+            return Hashing.mix(key.hashCode() ^ (int)k0) ^ (int)k1;
+        long h = Hashing.sipHash24(k0, k1, bytes);
+        return (int)(h ^ (h >>> 32));
+    }
+    private static byte[] chars(String s){
+        byte[] bytes = new byte[s.length()*2];
+        for(int i=0; i<s.length(); i++){
+            char c = s.charAt(i);
+            bytes[2*i] = (byte)c;
+            bytes[2*i+1] = (byte)(c >>> 8);
+        }
+        return bytes;
+    }
+}
+
+/**
+ * Hash functions and index mapping shared by the hash based containers.
+ * @author Scala28
+ */
+class Hashing{
+    //Maps a hash to [0, length): a mask when length is a power of two, a division otherwise
+    static int index(int hash, int length){
+        if((length & (length-1)) == 0)
+            return hash & (length-1);
+        return (hash & 0x7FFFFFFF) % length;
+    }
+    //Murmur3 32 bit finalizer
+    static int mix(int h){
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+    //Murmur3 64 bit finalizer
+    static long mix(long h){
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    @SuppressWarnings("fallthrough")
+    static int murmur3(byte[] bytes, int seed){
+        int h = seed;
+        int i = 0;
+        for(; i+4 <= bytes.length; i += 4){
+            int k = (bytes[i] & 0xFF) | (bytes[i+1] & 0xFF) << 8 | (bytes[i+2] & 0xFF) << 16 | bytes[i+3] << 24;
+            k *= 0xCC9E2D51;
+            k = Integer.rotateLeft(k, 15);
+            k *= 0x1B873593;
+            h ^= k;
+            h = Integer.rotateLeft(h, 13);
+            h = h*5 + 0xE6546B64;
+        }
+        int k = 0;
+        switch(bytes.length & 3){
+            case 3: k ^= (bytes[i+2] & 0xFF) << 16;
+                //fall through
+            case 2: k ^= (bytes[i+1] & 0xFF) << 8;
+                //fall through
+            case 1: k ^= bytes[i] & 0xFF;
+                k *= 0xCC9E2D51;
+                k = Integer.rotateLeft(k, 15);
+                k *= 0x1B873593;
+                h ^= k;
+        }
+        h ^= bytes.length;
+        return mix(h);
+    }
+    //One lane of Murmur3 x64 over the chars of the string, four per round: 64 bit hash of the content
+    static long murmur64(String s, long seed){
+        long h = seed;
+        int n = s.length();
+        int i = 0;
+        for(; i+4 <= n; i += 4)
+            h = murmur64Round(h, s.charAt(i) | (long)s.charAt(i+1) << 16 | (long)s.charAt(i+2) << 32 | (long)s.charAt(i+3) << 48);
+        if(i < n){
+            long k = 0;
+            for(int shift=0; i<n; i++, shift += 16)
+                k |= (long)s.charAt(i) << shift;
+            h = murmur64Round(h, k);
+        }
+        return mix(h ^ n);
+    }
+    //The same over bytes, eight per round
+    static long murmur64(byte[] bytes, long seed){
+        long h = seed;
+        int last = bytes.length & ~7;
+        for(int i=0; i<last; i += 8)
+            h = murmur64Round(h, littleEndian(bytes, i, 8));
+        if(last < bytes.length)
+            h = murmur64Round(h, littleEndian(bytes, last, bytes.length - last));
+        return mix(h ^ bytes.length);
+    }
+    private static long murmur64Round(long h, long k){
+        k *= 0x87C37B91114253D5L;
+        k = Long.rotateLeft(k, 31);
+        k *= 0x4CF5AD432745937FL;
+        h ^= k;
+        h = Long.rotateLeft(h, 27);
+        return h*5 + 0x52DCE729;
+    }
+    static long sipHash24(long k0, long k1, byte[] bytes){
+        long v0 = 0x736F6D6570736575L ^ k0;
+        long v1 = 0x646F72616E646F6DL ^ k1;
+        long v2 = 0x6C7967656E657261L ^ k0;
+        long v3 = 0x7465646279746573L ^ k1;
+        int last = bytes.length & ~7;
+        for(int i=0; i<last; i += 8){
+            long m = littleEndian(bytes, i, 8);
+            v3 ^= m;
+            for(int r=0; r<2; r++){
+                v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+                v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+                v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+                v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            }
+            v0 ^= m;
+        }
+        long m = littleEndian(bytes, last, bytes.length - last) | ((long)bytes.length << 56);
+        v3 ^= m;
+        for(int r=0; r<2; r++){
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        v0 ^= m;
+        v2 ^= 0xFF;
+        for(int r=0; r<4; r++){
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+    static byte[] bytes(long value){
+        byte[] bytes = new byte[8];
+        for(int i=0; i<8; i++)
+            bytes[i] = (byte)(value >>> (8*i));
+        return bytes;
+    }
+    private static long littleEndian(byte[] bytes, int offset, int length){
+        long m = 0;
+        for(int i=0; i<length; i++)
+            m |= (bytes[offset+i] & 0xFFL) << (8*i);
+        return m;
+    }
+}
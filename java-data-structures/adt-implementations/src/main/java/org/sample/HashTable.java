@@ -36,10 +36,19 @@ public interface HashTable extends Container {
 class ArrayHashTable implements HashTable{
     private LinkedList[] table;
     private int count;
+    private final HashStrategy strategy;
 
     public ArrayHashTable(int dim){
-        if(dim <= 0)
+        this(dim, HashStrategy.DEFAULT);
+    }
+    /**
+     * @param dim The table dimension.
+     * @param strategy The function used to hash the keys.
+     */
+    public ArrayHashTable(int dim, HashStrategy strategy){
+        if(dim <= 0 || strategy == null)
             throw new IllegalArgumentException();
+        this.strategy = strategy;
         table = new LinkedList[dim];
         makeEmpty();
     }
@@ -51,17 +60,23 @@ class ArrayHashTable implements HashTable{
     public boolean isEmpty(){
         return count == 0;
     }
+    //The absolute remainder of the hash, so that with DEFAULT the buckets are those of a plain hashCode table
     public int hashMap(Object key) throws IllegalArgumentException{
         if(key == null)
             throw new IllegalArgumentException();
-        int hash = key.hashCode() % table.length;
+        int hash = strategy.hash(key) % table.length;
         if(hash < 0)
             hash = -hash;
         return hash;
     }
+    //Index used by IncrementalHashTable: a mask for power of two lengths, a division otherwise
+    static int hashMap(Object key, int dim, HashStrategy strategy) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        return Hashing.index(strategy.hash(key), dim);
+    }
     public void insert(Object key, Object value) throws IllegalArgumentException{
         int index = hashMap(key);
-        System.out.println(index);
         //If no list with such index is found
         if(table[index] == null){
             LinkedList list = new LinkedList();
@@ -86,6 +101,7 @@ class ArrayHashTable implements HashTable{
         }
         //add a new association to the List at position index
         table[index].addLast(new Pair(key, value));
+        count++;
     }
     public void remove(Object key) throws IllegalArgumentException{
         int index = hashMap(key);
@@ -100,6 +116,7 @@ class ArrayHashTable implements HashTable{
             //If a Value associated to the given key is found
             if(temp != null && key.equals(((Pair) temp).getKey())){
                 iter.remove();
+                count--;
                 if(table[index].isEmpty())
                     table[index] = null;
             }
@@ -122,6 +139,22 @@ class ArrayHashTable implements HashTable{
         return null;
     }
     public float loadFactor() {return (count + 0.0f) / table.length;}
+    /**
+     * @return The number of associations stored at every index of the table.
+     */
+    public int[] chainLengths(){
+        int[] lengths = new int[table.length];
+        for(int i=0; i<table.length; i++){
+            if(table[i] == null)
+                continue;
+            ListIterator iter = table[i].getIterator();
+            while(iter.hasNext()){
+                iter.next();
+                lengths[i]++;
+            }
+        }
+        return lengths;
+    }
     private class Pair{
         private Object key;
         private Object value;
@@ -143,3 +176,300 @@ class ArrayHashTable implements HashTable{
         }
     }
 }
+
+/**
+ * Implementation using open addressing over parallel key/value arrays with linear probing.
+ * The arrays grow when the configured load factor is exceeded; tombstones left by remove
+ * are compacted away by rehashing.
+ * @author Scala28
+ */
+class OpenHashTable implements HashTable{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private static final int MAX_CAPACITY = 1 << 30;
+    //Marks a removed slot, so that probe sequences passing through it are not interrupted
+    private static final Object TOMBSTONE = new Object();
+    private Object[] keys;
+    private Object[] values;
+    private int count;
+    private int tombstones;
+    private int threshold;
+    private final float maxLoadFactor;
+    private final HashStrategy strategy;
+
+    public OpenHashTable(){
+        this(INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    public OpenHashTable(int dim){
+        this(dim, DEFAULT_LOAD_FACTOR);
+    }
+    public OpenHashTable(int dim, float maxLoadFactor){
+        this(dim, maxLoadFactor, HashStrategy.MIX);
+    }
+    public OpenHashTable(int dim, float maxLoadFactor, HashStrategy strategy){
+        if(dim <= 0 || !(maxLoadFactor > 0 && maxLoadFactor < 1) || strategy == null)
+            throw new IllegalArgumentException();
+        this.maxLoadFactor = maxLoadFactor;
+        this.strategy = strategy;
+        allocate(tableSizeFor(dim));
+    }
+    public void makeEmpty(){
+        count = 0;
+        tombstones = 0;
+        for(int i=0; i<keys.length; i++){
+            keys[i] = null;
+            values[i] = null;
+        }
+    }
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    public int hashMap(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        return strategy.hash(key) & (keys.length-1);
+    }
+    //O(1) - amortized analysis
+    public void insert(Object key, Object value) throws IllegalArgumentException{
+        int index = hashMap(key);
+        int free = -1;
+        while(keys[index] != null){
+            if(keys[index] == TOMBSTONE){
+                if(free < 0)
+                    free = index;
+            }else if(keys[index].equals(key)){
+                values[index] = value;
+                return;
+            }
+            index = (index+1) & (keys.length-1);
+        }
+        //A table at MAX_CAPACITY cannot double: fail before the entry is stored
+        int used = count + 1 + (free >= 0 ? tombstones-1 : tombstones);
+        if(used > threshold && count >= threshold/2 && keys.length == MAX_CAPACITY)
+            throw new IllegalStateException();
+        //Reuse the first tombstone met along the probe sequence
+        if(free >= 0){
+            index = free;
+            tombstones--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        count++;
+        if(count + tombstones > threshold)
+            rehash();
+    }
+    //O(1)
+    public void remove(Object key) throws IllegalArgumentException{
+        int index = indexOf(key);
+        if(index >= 0){
+            keys[index] = TOMBSTONE;
+            values[index] = null;
+            count--;
+            tombstones++;
+        }
+    }
+    //O(1)
+    public Object find(Object key) throws IllegalArgumentException{
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+    public float loadFactor(){return (count + 0.0f) / keys.length;}
+    private int indexOf(Object key){
+        int index = hashMap(key);
+        while(keys[index] != null){
+            if(keys[index] != TOMBSTONE && keys[index].equals(key))
+                return index;
+            index = (index+1) & (keys.length-1);
+        }
+        return -1;
+    }
+    //Doubles the capacity if live entries exceed half of the threshold, otherwise only drops tombstones
+    private void rehash(){
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(count > threshold/2 ? oldKeys.length*2 : oldKeys.length);
+        for(int i=0; i<oldKeys.length; i++){
+            if(oldKeys[i] == null || oldKeys[i] == TOMBSTONE)
+                continue;
+            int index = hashMap(oldKeys[i]);
+            while(keys[index] != null)
+                index = (index+1) & (keys.length-1);
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+            count++;
+        }
+    }
+    private void allocate(int length){
+        keys = new Object[length];
+        values = new Object[length];
+        count = 0;
+        tombstones = 0;
+        threshold = Math.min((int)(length * maxLoadFactor), length-1);
+    }
+    private static int tableSizeFor(int dim){
+        if(dim > MAX_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while(n < dim)
+            n <<= 1;
+        return Math.max(n, 2);
+    }
+}
+
+/**
+ * Implementation using arrays of chained entries that grow by progressive rehashing.
+ * While a resize is in progress the old and the new array are both alive: lookups consult both,
+ * new entries go to the new array and every operation moves a bounded number of buckets,
+ * so no single insert pays for the whole resize.
+ * @author Scala28
+ */
+class IncrementalHashTable implements HashTable{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 1.0f;
+    //Non-empty buckets moved per operation, and the bound on empty buckets visited for each of them
+    private static final int REHASH_STEP = 1;
+    private static final int EMPTY_VISITS = 10;
+    private Entry[] table;
+    private Entry[] oldTable;
+    private int rehashIndex;
+    private int count;
+    private final float maxLoadFactor;
+    private final HashStrategy strategy;
+
+    public IncrementalHashTable(){
+        this(INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    public IncrementalHashTable(int dim){
+        this(dim, DEFAULT_LOAD_FACTOR);
+    }
+    public IncrementalHashTable(int dim, float maxLoadFactor){
+        this(dim, maxLoadFactor, HashStrategy.MIX);
+    }
+    public IncrementalHashTable(int dim, float maxLoadFactor, HashStrategy strategy){
+        if(dim <= 0 || !(maxLoadFactor > 0) || strategy == null)
+            throw new IllegalArgumentException();
+        this.maxLoadFactor = maxLoadFactor;
+        this.strategy = strategy;
+        table = new Entry[dim];
+        makeEmpty();
+    }
+    public void makeEmpty(){
+        count = 0;
+        oldTable = null;
+        rehashIndex = 0;
+        for(int i=0; i<table.length; i++)
+            table[i] = null;
+    }
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    public boolean isRehashing(){
+        return oldTable != null;
+    }
+    //O(1)
+    public void insert(Object key, Object value) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        rehashStep();
+        Entry e = findEntry(key);
+        if(e != null){
+            e.value = value;
+            return;
+        }
+        //While rehashing, new entries always go to the new array
+        int index = ArrayHashTable.hashMap(key, table.length, strategy);
+        table[index] = new Entry(key, value, table[index]);
+        count++;
+        if(oldTable == null && count > table.length * maxLoadFactor){
+            oldTable = table;
+            table = new Entry[oldTable.length*2];
+            rehashIndex = 0;
+        }
+    }
+    //O(1)
+    public void remove(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        rehashStep();
+        if(oldTable != null && removeFrom(oldTable, key))
+            return;
+        removeFrom(table, key);
+    }
+    //O(1)
+    public Object find(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        rehashStep();
+        Entry e = findEntry(key);
+        return e != null ? e.value : null;
+    }
+    public float loadFactor(){
+        int dim = table.length + (oldTable != null ? oldTable.length : 0);
+        return (count + 0.0f) / dim;
+    }
+    private Entry findEntry(Object key){
+        if(oldTable != null){
+            for(Entry e = oldTable[ArrayHashTable.hashMap(key, oldTable.length, strategy)]; e != null; e = e.next)
+                if(e.key.equals(key))
+                    return e;
+        }
+        for(Entry e = table[ArrayHashTable.hashMap(key, table.length, strategy)]; e != null; e = e.next)
+            if(e.key.equals(key))
+                return e;
+        return null;
+    }
+    private boolean removeFrom(Entry[] t, Object key){
+        int index = ArrayHashTable.hashMap(key, t.length, strategy);
+        Entry previous = null;
+        for(Entry e = t[index]; e != null; previous = e, e = e.next){
+            if(e.key.equals(key)){
+                if(previous == null)
+                    t[index] = e.next;
+                else
+                    previous.next = e.next;
+                count--;
+                return true;
+            }
+        }
+        return false;
+    }
+    //Moves up to REHASH_STEP non-empty buckets, visiting at most REHASH_STEP*EMPTY_VISITS empty ones
+    private void rehashStep(){
+        if(oldTable == null)
+            return;
+        int moved = 0;
+        int emptyVisits = REHASH_STEP * EMPTY_VISITS;
+        while(moved < REHASH_STEP && rehashIndex < oldTable.length){
+            Entry e = oldTable[rehashIndex];
+            if(e == null){
+                rehashIndex++;
+                if(--emptyVisits == 0)
+                    break;
+                continue;
+            }
+            while(e != null){
+                Entry next = e.next;
+                int index = ArrayHashTable.hashMap(e.key, table.length, strategy);
+                e.next = table[index];
+                table[index] = e;
+                e = next;
+            }
+            oldTable[rehashIndex++] = null;
+            moved++;
+        }
+        if(rehashIndex == oldTable.length){
+            oldTable = null;
+            rehashIndex = 0;
+        }
+    }
+    private static class Entry{
+        private final Object key;
+        private Object value;
+        private Entry next;
+        public Entry(Object key, Object value, Entry next){
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
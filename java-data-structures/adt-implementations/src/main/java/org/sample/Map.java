@@ -1,5 +1,9 @@
 package org.sample;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
 /**
  * Map realize a biunivocal mapping function between the key set and the value set.
  */
@@ -39,7 +43,7 @@ public interface Map extends Container{
 /**
  * Inherits from Map all the properties. Objects are kept sorted.
  */
-interface SortedMap extends Map{
+interface SortedMap extends Map, Navigable{
     /**
      * @return All the keys found in the map, sorted in ascending order.
      */
@@ -106,6 +110,45 @@ class ArrayMap implements Map{
             keys[i] = p[i].getKey();
         return keys;
     }
+    /**
+     * Build a map from parallel arrays of keys and values. If a key appears more than once, its last value is kept.
+     * @throws IllegalArgumentException If the arrays have different lengths or contain null.
+     */
+    //O(n)
+    public static ArrayMap fromEntries(Object[] keys, Object[] values){
+        ArrayMap x = new ArrayMap();
+        x.putAll(keys, values);
+        return x;
+    }
+    /**
+     * Put all the given associations, as a sequence of put calls would do. Keys are matched through
+     * a hash table instead of scanning the map, and the array is resized only once.
+     * @throws IllegalArgumentException If the arrays have different lengths or contain null.
+     */
+    //O(n+m)
+    public void putAll(Object[] keys, Object[] values){
+        if(keys == null || values == null || keys.length != values.length)
+            throw new IllegalArgumentException();
+        HashTable positions = new OpenHashTable(Math.max(2*(pSize + keys.length), 1));
+        for(int i=0; i<pSize; i++)
+            positions.insert(p[i].getKey(), i);
+        Pair[] x = new Pair[pSize + keys.length];
+        System.arraycopy(p, 0, x, 0, pSize);
+        int n = pSize;
+        for(int i=0; i<keys.length; i++){
+            if(values[i] == null)
+                throw new IllegalArgumentException();
+            Integer pos = (Integer)positions.find(keys[i]);
+            if(pos != null)
+                x[pos].setValue(values[i]);
+            else{
+                positions.insert(keys[i], n);
+                x[n++] = new Pair(keys[i], values[i]);
+            }
+        }
+        p = n == x.length && n > 0 ? x : Arrays.copyOf(x, Math.max(n, INITIAL_CAPACITY));
+        pSize = n;
+    }
     public class Pair{
         private Object key;
         private Object value;
@@ -179,6 +222,94 @@ class ArraySortedMap implements SortedMap{
         pSize++;
         return null;
     }
+    //O(logn)
+    public Comparable floor(Comparable key){return keyAt(higherIndex(key)-1);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return keyAt(ceilingIndex(key));}
+    //O(logn)
+    public Comparable lower(Comparable key){return keyAt(ceilingIndex(key)-1);}
+    //O(logn)
+    public Comparable higher(Comparable key){return keyAt(higherIndex(key));}
+    //O(1)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return p[0].getKey();
+    }
+    //O(1)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return p[pSize-1].getKey();
+    }
+    //O(logn) to position the cursor, O(1) for every key
+    public Cursor range(Comparable from, Comparable to){
+        int start = from == null ? 0 : ceilingIndex(from);
+        int end = to == null ? pSize : ceilingIndex(to);
+        return new RangeCursor(start, end);
+    }
+    /**
+     * Build a map from parallel arrays of keys and values. If a key appears more than once, its last value is kept.
+     * @throws IllegalArgumentException If the arrays have different lengths or contain null.
+     */
+    //O(nlogn)
+    public static ArraySortedMap fromEntries(Comparable[] keys, Object[] values){
+        ArraySortedMap x = new ArraySortedMap();
+        x.putAll(keys, values);
+        return x;
+    }
+    /**
+     * Put all the given associations, as a sequence of put calls would do: they are sorted once
+     * (stably, so that the last value of a repeated key wins) and merged with the map's ones,
+     * into an array sized exactly.
+     * @throws IllegalArgumentException If the arrays have different lengths or contain null.
+     */
+    //O(n + mlogm)
+    @SuppressWarnings("unchecked")
+    public void putAll(Comparable[] keys, Object[] values){
+        if(keys == null || values == null || keys.length != values.length)
+            throw new IllegalArgumentException();
+        Pair[] sorted = new Pair[keys.length];
+        for(int i=0; i<keys.length; i++){
+            if(keys[i] == null || values[i] == null)
+                throw new IllegalArgumentException();
+            sorted[i] = new Pair(keys[i], values[i]);
+        }
+        Arrays.sort(sorted, new Comparator<Pair>(){
+            public int compare(Pair a, Pair b){
+                return a.getKey().compareTo(b.getKey());
+            }
+        });
+        Pair[] x = new Pair[pSize + sorted.length];
+        int i = 0, j = 0, n = 0;
+        while(i < pSize || j < sorted.length){
+            //On equal keys the map's pair comes first, so that the new ones replace it
+            Pair next;
+            if(j == sorted.length || (i < pSize && p[i].getKey().compareTo(sorted[j].getKey()) <= 0))
+                next = p[i++];
+            else
+                next = sorted[j++];
+            if(n > 0 && x[n-1].getKey().compareTo(next.getKey()) == 0)
+                x[n-1] = next;
+            else
+                x[n++] = next;
+        }
+        p = n == x.length && n > 0 ? x : Arrays.copyOf(x, Math.max(n, INITIAL_CAPACITY));
+        pSize = n;
+    }
+    /**
+     * @return An immutable copy of the map, laid out for fast lookups.
+     */
+    //O(n)
+    public FrozenSortedMap freeze(){
+        Comparable[] keys = new Comparable[pSize];
+        Object[] values = new Object[pSize];
+        for(int i=0; i<pSize; i++){
+            keys[i] = p[i].getKey();
+            values[i] = p[i].getValue();
+        }
+        return new FrozenSortedMap(keys, values);
+    }
     public Comparable[] sortedKeys(){
         Comparable[] keys = new Comparable[pSize];
         for(int i=0; i<pSize; i++)
@@ -188,9 +319,10 @@ class ArraySortedMap implements SortedMap{
     public Object[] keys(){
         return sortedKeys();
     }
+    //Position of the key, or -(insertion point)-1 if it is not found
     private int binarySearch(int low, int high, Comparable key){
         if(low > high)
-            return -1;
+            return -(low+1);
         int mid = low +(high-low)/2;
         if(p[mid].getKey().compareTo(key) == 0)
             return mid;
@@ -199,6 +331,44 @@ class ArraySortedMap implements SortedMap{
         else
             return binarySearch(mid+1, high, key);
     }
+    //Index of the first key greater than or equal to the given one
+    private int ceilingIndex(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int pos = binarySearch(0, pSize-1, key);
+        return pos >= 0 ? pos : -pos-1;
+    }
+    //Index of the first key strictly greater than the given one
+    private int higherIndex(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int pos = binarySearch(0, pSize-1, key);
+        return pos >= 0 ? pos+1 : -pos-1;
+    }
+    private Comparable keyAt(int i){
+        return i >= 0 && i < pSize ? p[i].getKey() : null;
+    }
+    private class RangeCursor implements Cursor{
+        private int next;
+        private int current = -1;
+        private final int end;
+        public RangeCursor(int start, int end){
+            next = start;
+            this.end = end;
+        }
+        public boolean hasNext(){return next < end;}
+        public Comparable next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            current = next++;
+            return p[current].getKey();
+        }
+        public Object getValue(){
+            if(current < 0)
+                throw new IllegalStateException();
+            return p[current].getValue();
+        }
+    }
     public class Pair{
         private Comparable key;
         private Object value;
@@ -212,3 +382,126 @@ class ArraySortedMap implements SortedMap{
         public void setValue(Object v){value = v;}
     }
 }
+
+/**
+ * Implementation of SortedMap using a B+-tree.
+ * Nodes keep up to BPlusTree.ORDER keys in contiguous arrays, so that a lookup touches a few
+ * cache lines per level instead of one node per comparison, and put/remove only shift within a node.
+ * @author Scala28
+ */
+class BPlusTreeMap implements SortedMap{
+    private final BPlusTree tree;
+    public BPlusTreeMap(){
+        tree = new BPlusTree();
+        makeEmpty();
+    }
+    public void makeEmpty(){tree.clear();}
+    public boolean isEmpty(){return tree.isEmpty();}
+    //O(logn)
+    public Object get(Object key) throws IllegalArgumentException{
+        if(!(key instanceof Comparable))
+            throw new IllegalArgumentException();
+        return tree.get((Comparable)key);
+    }
+    //O(logn)
+    public Object remove(Object key) throws IllegalArgumentException{
+        if(isEmpty())
+            throw new EmptyMapException();
+        if(!(key instanceof Comparable))
+            throw new IllegalArgumentException();
+        return tree.remove((Comparable)key);
+    }
+    //O(logn)
+    public Object put(Object key, Object value) throws IllegalArgumentException{
+        if(!(key instanceof Comparable) || value == null)
+            throw new IllegalArgumentException();
+        return tree.put((Comparable)key, value);
+    }
+    //O(logn)
+    public Comparable floor(Comparable key){return tree.floor(key);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return tree.ceiling(key);}
+    //O(logn)
+    public Comparable lower(Comparable key){return tree.lower(key);}
+    //O(logn)
+    public Comparable higher(Comparable key){return tree.higher(key);}
+    //O(1)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return tree.first();
+    }
+    //O(logn)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return tree.last();
+    }
+    //O(logn) to position the cursor, O(1) for every key
+    public Cursor range(Comparable from, Comparable to){
+        return tree.range(from, to);
+    }
+    //O(n), walking the linked leaves
+    public Comparable[] sortedKeys(){
+        return tree.keys();
+    }
+    public Object[] keys(){
+        return sortedKeys();
+    }
+}
+
+/**
+ * Immutable implementation of SortedMap using an EytzingerIndex, built by ArraySortedMap.freeze().
+ * Meant for reference data that is built once and read many times: get costs one comparison per
+ * level and, for Integer or Long keys, no pointer chasing. put, remove and makeEmpty
+ * throw UnsupportedOperationException.
+ * @author Scala28
+ */
+class FrozenSortedMap implements SortedMap{
+    private final EytzingerIndex index;
+    /**
+     * @param sortedKeys Distinct keys in ascending order.
+     * @param values The values of the keys, in the same order.
+     */
+    FrozenSortedMap(Comparable[] sortedKeys, Object[] values){
+        index = new EytzingerIndex(sortedKeys, values, sortedKeys.length);
+    }
+    public void makeEmpty(){throw new UnsupportedOperationException();}
+    public boolean isEmpty(){return index.size() == 0;}
+    //O(logn)
+    public Object get(Object key) throws IllegalArgumentException{
+        if(!(key instanceof Comparable))
+            throw new IllegalArgumentException();
+        int k = index.find((Comparable)key);
+        return k != 0 ? index.valueAt(k) : null;
+    }
+    public Object remove(Object key){throw new UnsupportedOperationException();}
+    public Object put(Object key, Object value){throw new UnsupportedOperationException();}
+    //O(logn)
+    public Comparable floor(Comparable key){return index.floor(key);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return index.ceiling(key);}
+    //O(logn)
+    public Comparable lower(Comparable key){return index.lower(key);}
+    //O(logn)
+    public Comparable higher(Comparable key){return index.higher(key);}
+    //O(logn)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return index.keyAt(index.first());
+    }
+    //O(logn)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptyMapException();
+        return index.keyAt(index.last());
+    }
+    //O(logn) to position the cursor, O(1) - amortized analysis for every key
+    public Cursor range(Comparable from, Comparable to){
+        return index.range(from, to);
+    }
+    //O(n)
+    public Comparable[] sortedKeys(){return index.sortedKeys();}
+    public Object[] keys(){return sortedKeys();}
+}
@@ -0,0 +1,309 @@
+package org.sample;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Implementation of HashTable persisted in a memory-mapped file.
+ * The file holds a versioned header, an open addressing index of (entry offset, hash) slots and
+ * an append-only heap of encoded entries; reopening an existing file only maps it, pages are
+ * read lazily on first access.
+ * The heap grows by extending the mapping in place. The index grows by writing a compacted copy
+ * next to the file and atomically renaming it over the original, so a crash during a resize
+ * leaves the previous table intact.
+ * Changes are guaranteed to be on disk only after force(). The whole file must fit in 2GB.
+ * Null values are not allowed.
+ * @author Scala28
+ */
+class MappedHashTable implements HashTable, Closeable{
+    private static final int MAGIC = 0x4A444854;
+    private static final int VERSION = 1;
+    //Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int TOMBSTONES_OFFSET = 16;
+    private static final int HEAP_END_OFFSET = 20;
+    private static final int GARBAGE_OFFSET = 24;
+    private static final int HEADER_SIZE = 64;
+    //Slot layout: entry offset (0 if empty, -1 if removed), key hash
+    private static final int SLOT_SIZE = 8;
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+    //Entry layout: key length, value length, key bytes, value bytes
+    private static final int ENTRY_HEADER = 8;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_HEAP = 1 << 20;
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final String RESIZE_SUFFIX = ".resize";
+    private final File file;
+    private final ByteCodec keyCodec;
+    private final ByteCodec valueCodec;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private int tombstones;
+    private int heapEnd;
+
+    /**
+     * Open the table stored in the given file, creating it if the file does not exist or is empty.
+     * @throws IllegalArgumentException If a parameter is null.
+     * @throws StorageException If the file can not be mapped or was not written by this class.
+     */
+    public MappedHashTable(File file, ByteCodec keyCodec, ByteCodec valueCodec){
+        if(file == null || keyCodec == null || valueCodec == null)
+            throw new IllegalArgumentException();
+        this.file = file;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        try{
+            //A leftover copy belongs to a resize that did not complete
+            Files.deleteIfExists(resizeFile().toPath());
+            if(!file.exists() || file.length() == 0){
+                writeTable(resizeFile(), INITIAL_CAPACITY, INITIAL_HEAP);
+                Files.move(resizeFile().toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            open();
+        }catch(IOException ex){
+            throw new StorageException(ex);
+        }
+    }
+    public void makeEmpty(){
+        for(int i=0; i<capacity; i++)
+            buffer.putLong(slot(i), 0);
+        count = 0;
+        tombstones = 0;
+        heapEnd = heapStart(capacity);
+        buffer.putLong(GARBAGE_OFFSET, 0);
+        writeHeader();
+    }
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    //O(1) - amortized analysis
+    public void insert(Object key, Object value) throws IllegalArgumentException{
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        byte[] k = keyCodec.encode(key);
+        byte[] v = valueCodec.encode(value);
+        int hash = OffHeapHashTable.hashBytes(k);
+        int index = indexOf(k, hash);
+        if(index >= 0){
+            int offset = buffer.getInt(slot(index));
+            //A value of the same length is overwritten in place
+            if(buffer.getInt(offset+4) == v.length){
+                put(buffer, offset + ENTRY_HEADER + k.length, v);
+                return;
+            }
+            addGarbage(entrySize(buffer, offset));
+            buffer.putInt(slot(index), append(k, v));
+            writeHeader();
+            return;
+        }
+        if(count + tombstones + 1 > capacity * MAX_LOAD_FACTOR)
+            resize(count + 1 > capacity * MAX_LOAD_FACTOR / 2 ? capacity*2 : capacity);
+        int offset = append(k, v);
+        index = hash & (capacity-1);
+        while(buffer.getInt(slot(index)) != EMPTY && buffer.getInt(slot(index)) != TOMBSTONE)
+            index = (index+1) & (capacity-1);
+        if(buffer.getInt(slot(index)) == TOMBSTONE)
+            tombstones--;
+        buffer.putInt(slot(index)+4, hash);
+        buffer.putInt(slot(index), offset);
+        count++;
+        writeHeader();
+    }
+    //O(1)
+    public void remove(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        byte[] k = keyCodec.encode(key);
+        int index = indexOf(k, OffHeapHashTable.hashBytes(k));
+        if(index >= 0){
+            addGarbage(entrySize(buffer, buffer.getInt(slot(index))));
+            buffer.putInt(slot(index), TOMBSTONE);
+            count--;
+            tombstones++;
+            writeHeader();
+        }
+    }
+    //O(1)
+    public Object find(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        byte[] k = keyCodec.encode(key);
+        int index = indexOf(k, OffHeapHashTable.hashBytes(k));
+        if(index < 0)
+            return null;
+        int offset = buffer.getInt(slot(index));
+        byte[] v = new byte[buffer.getInt(offset+4)];
+        get(buffer, offset + ENTRY_HEADER + k.length, v);
+        return valueCodec.decode(v);
+    }
+    public float loadFactor(){return (count + 0.0f) / capacity;}
+    /**
+     * Write all the changes made so far to the storage device.
+     */
+    public void force(){
+        buffer.force();
+    }
+    /**
+     * Force the changes to disk and release the file. The table can not be used afterwards.
+     */
+    public void close() throws IOException{
+        force();
+        channel.close();
+    }
+    private void open() throws IOException{
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        if(channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE){
+            channel.close();
+            throw new StorageException("Not a MappedHashTable file: " + file);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if(buffer.getInt(MAGIC_OFFSET) != MAGIC){
+            channel.close();
+            throw new StorageException("Not a MappedHashTable file: " + file);
+        }
+        if(buffer.getInt(VERSION_OFFSET) != VERSION){
+            channel.close();
+            throw new StorageException("Unsupported MappedHashTable version: " + buffer.getInt(VERSION_OFFSET));
+        }
+        capacity = buffer.getInt(CAPACITY_OFFSET);
+        count = buffer.getInt(COUNT_OFFSET);
+        tombstones = buffer.getInt(TOMBSTONES_OFFSET);
+        heapEnd = buffer.getInt(HEAP_END_OFFSET);
+    }
+    //Writes a complete table to target: a new empty one, or a compacted copy of this one if it is open
+    private void writeTable(File target, int newCapacity, int heapSize) throws IOException{
+        long size = (long)heapStart(newCapacity) + heapSize;
+        if(size > Integer.MAX_VALUE)
+            throw new StorageException("MappedHashTable file would exceed 2GB");
+        try(FileChannel out = new RandomAccessFile(target, "rw").getChannel()){
+            out.truncate(0);
+            MappedByteBuffer b = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int end = heapStart(newCapacity);
+            int live = 0;
+            for(int i=0; buffer != null && i<capacity; i++){
+                int offset = buffer.getInt(slot(i));
+                if(offset == EMPTY || offset == TOMBSTONE)
+                    continue;
+                int hash = buffer.getInt(slot(i)+4);
+                int length = entrySize(buffer, offset);
+                ByteBuffer entry = buffer.duplicate();
+                entry.position(offset);
+                entry.limit(offset + length);
+                b.position(end);
+                b.put(entry);
+                int index = hash & (newCapacity-1);
+                while(b.getInt(slot(index)) != EMPTY)
+                    index = (index+1) & (newCapacity-1);
+                b.putInt(slot(index), end);
+                b.putInt(slot(index)+4, hash);
+                end += length;
+                live++;
+            }
+            b.putInt(VERSION_OFFSET, VERSION);
+            b.putInt(CAPACITY_OFFSET, newCapacity);
+            b.putInt(COUNT_OFFSET, live);
+            b.putInt(TOMBSTONES_OFFSET, 0);
+            b.putInt(HEAP_END_OFFSET, end);
+            b.putLong(GARBAGE_OFFSET, 0);
+            b.force();
+            //The magic number is written last: a file without it is never opened
+            b.putInt(MAGIC_OFFSET, MAGIC);
+            b.force();
+        }
+    }
+    private void resize(int newCapacity){
+        File copy = resizeFile();
+        try{
+            long live = heapEnd - heapStart(capacity) - buffer.getLong(GARBAGE_OFFSET);
+            writeTable(copy, newCapacity, (int)Math.min(Math.max(live*2, INITIAL_HEAP), Integer.MAX_VALUE - heapStart(newCapacity)));
+            channel.close();
+            Files.move(copy.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            open();
+        }catch(IOException ex){
+            throw new StorageException(ex);
+        }
+    }
+    //Returns the offset of the new entry, extending the mapping if the heap is full
+    private int append(byte[] key, byte[] value){
+        long size = (long)ENTRY_HEADER + key.length + value.length;
+        if(heapEnd + size > buffer.capacity()){
+            long newSize = Math.max((long)buffer.capacity()*2, heapEnd + size);
+            if(heapEnd + size > Integer.MAX_VALUE)
+                throw new StorageException("MappedHashTable file would exceed 2GB");
+            try{
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(newSize, Integer.MAX_VALUE));
+            }catch(IOException ex){
+                throw new StorageException(ex);
+            }
+        }
+        int offset = heapEnd;
+        buffer.putInt(offset, key.length);
+        buffer.putInt(offset+4, value.length);
+        put(buffer, offset + ENTRY_HEADER, key);
+        put(buffer, offset + ENTRY_HEADER + key.length, value);
+        heapEnd += (int)size;
+        return offset;
+    }
+    private int indexOf(byte[] key, int hash){
+        int index = hash & (capacity-1);
+        int offset;
+        while((offset = buffer.getInt(slot(index))) != EMPTY){
+            if(offset != TOMBSTONE && buffer.getInt(slot(index)+4) == hash && keyEquals(offset, key))
+                return index;
+            index = (index+1) & (capacity-1);
+        }
+        return -1;
+    }
+    private boolean keyEquals(int offset, byte[] key){
+        if(buffer.getInt(offset) != key.length)
+            return false;
+        int position = offset + ENTRY_HEADER;
+        for(int i=0; i<key.length; i++)
+            if(buffer.get(position + i) != key[i])
+                return false;
+        return true;
+    }
+    private void writeHeader(){
+        buffer.putInt(COUNT_OFFSET, count);
+        buffer.putInt(TOMBSTONES_OFFSET, tombstones);
+        buffer.putInt(HEAP_END_OFFSET, heapEnd);
+    }
+    private void addGarbage(int bytes){
+        buffer.putLong(GARBAGE_OFFSET, buffer.getLong(GARBAGE_OFFSET) + bytes);
+    }
+    private File resizeFile(){
+        return new File(file.getPath() + RESIZE_SUFFIX);
+    }
+    private static int slot(int index){
+        return HEADER_SIZE + index * SLOT_SIZE;
+    }
+    private static int heapStart(int capacity){
+        return HEADER_SIZE + capacity * SLOT_SIZE;
+    }
+    private static int entrySize(ByteBuffer b, int offset){
+        return ENTRY_HEADER + b.getInt(offset) + b.getInt(offset+4);
+    }
+    private static void put(ByteBuffer b, int position, byte[] bytes){
+        ByteBuffer d = b.duplicate();
+        d.position(position);
+        d.put(bytes);
+    }
+    private static void get(ByteBuffer b, int position, byte[] bytes){
+        ByteBuffer d = b.duplicate();
+        d.position(position);
+        d.get(bytes);
+    }
+}
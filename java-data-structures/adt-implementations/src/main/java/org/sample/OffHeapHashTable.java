@@ -0,0 +1,257 @@
+package org.sample;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementation of HashTable keeping keys and values outside of the heap.
+ * Keys and values are serialized by the given codecs and appended to direct memory slabs;
+ * the heap only holds an open addressing index with the address and the hash of every entry.
+ * Lookups compare the encoded key with the stored bytes in place, values are decoded only when found.
+ * Space left by removed or replaced entries is reclaimed by compact(). Null values are not allowed.
+ * @author Scala28
+ */
+class OffHeapHashTable implements HashTable{
+    private static final int DEFAULT_SLAB_SIZE = 64 << 20;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final int MAX_CAPACITY = 1 << 30;
+    //Entry layout: key length, value length, key bytes, value bytes
+    private static final int ENTRY_HEADER = 8;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    private final ByteCodec keyCodec;
+    private final ByteCodec valueCodec;
+    private final int slabSize;
+    private final HashStrategy strategy;
+    private long[] addresses;
+    private int[] hashes;
+    private int count;
+    private int tombstones;
+    private ByteBuffer[] slabs;
+    private int slabCount;
+    private long garbage;
+
+    public OffHeapHashTable(ByteCodec keyCodec, ByteCodec valueCodec){
+        this(keyCodec, valueCodec, INITIAL_CAPACITY, DEFAULT_SLAB_SIZE);
+    }
+    /**
+     * @param dim Expected number of entries.
+     * @param slabSize Bytes of direct memory allocated at a time; entries bigger than this get a slab of their own.
+     * @throws IllegalArgumentException If a codec is null, or dim or slabSize are not positive.
+     */
+    public OffHeapHashTable(ByteCodec keyCodec, ByteCodec valueCodec, int dim, int slabSize){
+        this(keyCodec, valueCodec, dim, slabSize, HashStrategy.MIX);
+    }
+    /**
+     * @param strategy The function used to hash the encoded keys; it receives byte[] keys, so it must hash them by content.
+     */
+    public OffHeapHashTable(ByteCodec keyCodec, ByteCodec valueCodec, int dim, int slabSize, HashStrategy strategy){
+        if(keyCodec == null || valueCodec == null || dim <= 0 || slabSize <= ENTRY_HEADER || strategy == null)
+            throw new IllegalArgumentException();
+        this.strategy = strategy;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.slabSize = slabSize;
+        allocateIndex(tableSizeFor(dim / MAX_LOAD_FACTOR));
+        makeEmpty();
+    }
+    public void makeEmpty(){
+        for(int i=0; i<addresses.length; i++)
+            addresses[i] = EMPTY;
+        count = 0;
+        tombstones = 0;
+        slabs = new ByteBuffer[1];
+        slabCount = 0;
+        garbage = 0;
+    }
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    //O(1) - amortized analysis
+    public void insert(Object key, Object value) throws IllegalArgumentException{
+        if(key == null || value == null)
+            throw new IllegalArgumentException();
+        byte[] k = keyCodec.encode(key);
+        byte[] v = valueCodec.encode(value);
+        int hash = strategy.hash(k);
+        int index = indexOf(k, hash);
+        if(index >= 0){
+            long address = addresses[index];
+            ByteBuffer slab = slab(address);
+            int offset = offset(address);
+            //A value of the same length is overwritten in place
+            if(slab.getInt(offset+4) == v.length){
+                put(slab, offset + ENTRY_HEADER + k.length, v);
+                return;
+            }
+            garbage += entrySize(slab, offset);
+            addresses[index] = append(k, v);
+            return;
+        }
+        index = hash & (addresses.length-1);
+        while(addresses[index] != EMPTY && addresses[index] != TOMBSTONE)
+            index = (index+1) & (addresses.length-1);
+        //An index at MAX_CAPACITY cannot double: fail before the entry is appended and counted
+        int used = count + 1 + (addresses[index] == TOMBSTONE ? tombstones-1 : tombstones);
+        if(used > addresses.length * MAX_LOAD_FACTOR && count+1 > addresses.length * MAX_LOAD_FACTOR / 2
+                && addresses.length == MAX_CAPACITY)
+            throw new IllegalStateException();
+        if(addresses[index] == TOMBSTONE)
+            tombstones--;
+        addresses[index] = append(k, v);
+        hashes[index] = hash;
+        count++;
+        if(count + tombstones > addresses.length * MAX_LOAD_FACTOR)
+            rehash(count > addresses.length * MAX_LOAD_FACTOR / 2 ? addresses.length*2 : addresses.length);
+    }
+    //O(1)
+    public void remove(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        byte[] k = keyCodec.encode(key);
+        int index = indexOf(k, strategy.hash(k));
+        if(index >= 0){
+            garbage += entrySize(slab(addresses[index]), offset(addresses[index]));
+            addresses[index] = TOMBSTONE;
+            count--;
+            tombstones++;
+        }
+    }
+    //O(1)
+    public Object find(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        byte[] k = keyCodec.encode(key);
+        int index = indexOf(k, strategy.hash(k));
+        if(index < 0)
+            return null;
+        ByteBuffer slab = slab(addresses[index]);
+        int offset = offset(addresses[index]);
+        byte[] v = new byte[slab.getInt(offset+4)];
+        get(slab, offset + ENTRY_HEADER + k.length, v);
+        return valueCodec.decode(v);
+    }
+    public float loadFactor(){return (count + 0.0f) / addresses.length;}
+    /**
+     * @return Bytes of direct memory currently allocated.
+     */
+    public long offHeapBytes(){
+        long bytes = 0;
+        for(int i=0; i<slabCount; i++)
+            bytes += slabs[i].capacity();
+        return bytes;
+    }
+    /**
+     * @return Bytes of direct memory held by removed or replaced entries.
+     */
+    public long garbageBytes(){
+        return garbage;
+    }
+    /**
+     * Copy all the live entries to new slabs, releasing the space of removed or replaced entries.
+     */
+    public void compact(){
+        ByteBuffer[] oldSlabs = slabs;
+        slabs = new ByteBuffer[1];
+        slabCount = 0;
+        for(int i=0; i<addresses.length; i++){
+            if(addresses[i] == EMPTY || addresses[i] == TOMBSTONE)
+                continue;
+            ByteBuffer slab = oldSlabs[(int)(addresses[i] >>> 32) - 1];
+            int offset = offset(addresses[i]);
+            byte[] k = new byte[slab.getInt(offset)];
+            byte[] v = new byte[slab.getInt(offset+4)];
+            get(slab, offset + ENTRY_HEADER, k);
+            get(slab, offset + ENTRY_HEADER + k.length, v);
+            addresses[i] = append(k, v);
+        }
+        garbage = 0;
+    }
+    //Murmur3 32 bit hash of the encoded key, with a fixed seed so that it can be persisted
+    static int hashBytes(byte[] bytes){
+        return Hashing.murmur3(bytes, 0x9747B28C);
+    }
+    private int indexOf(byte[] key, int hash){
+        int index = hash & (addresses.length-1);
+        while(addresses[index] != EMPTY){
+            if(addresses[index] != TOMBSTONE && hashes[index] == hash
+                    && keyEquals(slab(addresses[index]), offset(addresses[index]), key))
+                return index;
+            index = (index+1) & (addresses.length-1);
+        }
+        return -1;
+    }
+    private static boolean keyEquals(ByteBuffer slab, int offset, byte[] key){
+        if(slab.getInt(offset) != key.length)
+            return false;
+        int position = offset + ENTRY_HEADER;
+        for(int i=0; i<key.length; i++)
+            if(slab.get(position + i) != key[i])
+                return false;
+        return true;
+    }
+    private long append(byte[] key, byte[] value){
+        long size = (long)ENTRY_HEADER + key.length + value.length;
+        if(size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException();
+        ByteBuffer slab = slabCount > 0 ? slabs[slabCount-1] : null;
+        if(slab == null || slab.remaining() < size){
+            if(slabCount == slabs.length)
+                slabs = ArrayUtil.convertArray(ArrayUtil.resize(slabs, slabs.length*2), ByteBuffer.class);
+            slab = ByteBuffer.allocateDirect((int)Math.max(slabSize, size));
+            slabs[slabCount++] = slab;
+        }
+        int offset = slab.position();
+        slab.putInt(key.length);
+        slab.putInt(value.length);
+        slab.put(key);
+        slab.put(value);
+        return ((long)slabCount << 32) | offset;
+    }
+    private ByteBuffer slab(long address){
+        return slabs[(int)(address >>> 32) - 1];
+    }
+    private static int offset(long address){
+        return (int)address;
+    }
+    private static int entrySize(ByteBuffer slab, int offset){
+        return ENTRY_HEADER + slab.getInt(offset) + slab.getInt(offset+4);
+    }
+    private static void put(ByteBuffer slab, int position, byte[] bytes){
+        ByteBuffer b = slab.duplicate();
+        b.position(position);
+        b.put(bytes);
+    }
+    private static void get(ByteBuffer slab, int position, byte[] bytes){
+        ByteBuffer b = slab.duplicate();
+        b.position(position);
+        b.get(bytes);
+    }
+    private void rehash(int length){
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+        allocateIndex(length);
+        tombstones = 0;
+        for(int i=0; i<oldAddresses.length; i++){
+            if(oldAddresses[i] == EMPTY || oldAddresses[i] == TOMBSTONE)
+                continue;
+            int index = oldHashes[i] & (addresses.length-1);
+            while(addresses[index] != EMPTY)
+                index = (index+1) & (addresses.length-1);
+            addresses[index] = oldAddresses[i];
+            hashes[index] = oldHashes[i];
+        }
+    }
+    private void allocateIndex(int length){
+        addresses = new long[length];
+        hashes = new int[length];
+    }
+    private static int tableSizeFor(float dim){
+        if(dim > MAX_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 2;
+        while(n < dim)
+            n <<= 1;
+        return n;
+    }
+}
@@ -0,0 +1,286 @@
+package org.sample;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Immutable implementation of Map for static lookup tables, indexed by a minimal perfect hash function.
+ * The function maps the n keys to distinct slots in [0, n), so keys and values are kept in two arrays
+ * of exactly n entries and get costs one probe and one equals, whether the key is present or not,
+ * plus a scan of the few keys sharing their hash with another, if any.
+ * The function itself takes about 3 bits per key (see MinimalPerfectHash).
+ * put, remove and makeEmpty throw UnsupportedOperationException. Null values are not allowed.
+ * @author Scala28
+ */
+class PerfectHashMap implements Map{
+    private final MinimalPerfectHash hash;
+    private final Object[] keys;
+    private final Object[] values;
+
+    private PerfectHashMap(Object[] distinctKeys, Object[] values, int n){
+        hash = MinimalPerfectHash.build(distinctKeys, n);
+        keys = new Object[n];
+        this.values = new Object[n];
+        for(int i=0; i<n; i++){
+            int slot = hash.slot(distinctKeys[i]);
+            keys[slot] = distinctKeys[i];
+            this.values[slot] = values[i];
+        }
+    }
+    /**
+     * Build a map from parallel arrays of keys and values. If a key appears more than once, its last value is kept.
+     * @throws IllegalArgumentException If the arrays have different lengths or contain null.
+     */
+    //O(n) - expected
+    public static PerfectHashMap fromEntries(Object[] keys, Object[] values){
+        if(keys == null || values == null || keys.length != values.length)
+            throw new IllegalArgumentException();
+        HashTable positions = new OpenHashTable(Math.max(2*keys.length, 1));
+        Object[] distinctKeys = new Object[keys.length];
+        Object[] distinctValues = new Object[keys.length];
+        int n = 0;
+        for(int i=0; i<keys.length; i++){
+            if(values[i] == null)
+                throw new IllegalArgumentException();
+            Integer pos = (Integer)positions.find(keys[i]);
+            if(pos != null)
+                distinctValues[pos] = values[i];
+            else{
+                positions.insert(keys[i], n);
+                distinctKeys[n] = keys[i];
+                distinctValues[n++] = values[i];
+            }
+        }
+        return new PerfectHashMap(distinctKeys, distinctValues, n);
+    }
+    /**
+     * @return An immutable copy of the given map.
+     * @throws IllegalArgumentException If the map is null.
+     */
+    //O(n) - expected, plus a get on the given map for every key
+    public static PerfectHashMap copyOf(Map map){
+        if(map == null)
+            throw new IllegalArgumentException();
+        Object[] keys = map.keys();
+        Object[] values = new Object[keys.length];
+        for(int i=0; i<keys.length; i++)
+            values[i] = map.get(keys[i]);
+        return new PerfectHashMap(keys, values, keys.length);
+    }
+    public void makeEmpty(){throw new UnsupportedOperationException();}
+    public boolean isEmpty(){return keys.length == 0;}
+    //O(1)
+    public Object get(Object key) throws IllegalArgumentException{
+        if(key == null)
+            throw new IllegalArgumentException();
+        int slot = hash.slot(key);
+        return slot >= 0 && keys[slot].equals(key) ? values[slot] : null;
+    }
+    public Object remove(Object key){throw new UnsupportedOperationException();}
+    public Object put(Object key, Object value){throw new UnsupportedOperationException();}
+    public Object[] keys(){return keys.clone();}
+    /**
+     * @return Bits taken by the hash function for every key, not counting the keys and values arrays.
+     */
+    public double bitsPerKey(){
+        return keys.length == 0 ? 0 : (double)hash.bits() / keys.length;
+    }
+}
+
+/**
+ * Minimal perfect hash function built as a cascade of bit arrays (BBHash).
+ * Level i has a bit for each of the keys still unplaced; every key hashes to one bit, the bits hit by
+ * exactly one key are set and those keys are placed, the others try again at the next level.
+ * The slot of a key is the number of set bits before its own across all the levels, counted with
+ * a rank sampled every 512 bits. About 37% of the keys are placed at each level, so the levels take
+ * e bits per key in total, plus the rank samples.
+ * Keys are hashed to 64 bits with the seed of the function: String and byte[] keys by content, Long
+ * keys by value, the others through their hashCode. Distinct keys can still share a hash, as keys
+ * with equal hashCode do: they collide at every level, so they are left out of the levels and kept
+ * in a fallback array after the placed keys, told apart with equals.
+ * @author Scala28
+ */
+class MinimalPerfectHash{
+    private static final int MAX_LEVELS = 64;
+    private static final int MAX_ATTEMPTS = 8;
+    //Words covered by every rank sample, 512 bits
+    private static final int BLOCK_WORDS = 8;
+    private final long seed;
+    private final int levels;
+    //Size in bits and first bit of every level; level sizes are multiples of 64
+    private final long[] levelSize;
+    private final long[] levelStart;
+    private final long[] bits;
+    private final int[] ranks;
+    //Keys sharing their hash with another key, and their hashes; their slots follow the placed keys
+    private final Object[] fallbackKeys;
+    private final long[] fallbackHashes;
+    private final int placed;
+
+    private MinimalPerfectHash(long seed, int levels, long[] levelSize, long[] levelStart, long[] bits,
+                               Object[] fallbackKeys, long[] fallbackHashes){
+        this.seed = seed;
+        this.levels = levels;
+        this.levelSize = levelSize;
+        this.levelStart = levelStart;
+        this.bits = bits;
+        this.fallbackKeys = fallbackKeys;
+        this.fallbackHashes = fallbackHashes;
+        ranks = new int[(bits.length + BLOCK_WORDS - 1) / BLOCK_WORDS + 1];
+        int rank = 0;
+        for(int i=0; i<bits.length; i++){
+            if(i % BLOCK_WORDS == 0)
+                ranks[i / BLOCK_WORDS] = rank;
+            rank += Long.bitCount(bits[i]);
+        }
+        placed = rank;
+    }
+    /**
+     * @param keys Distinct keys; the first n are hashed.
+     * @throws IllegalArgumentException If some keys are null.
+     */
+    static MinimalPerfectHash build(Object[] keys, int n){
+        for(int i=0; i<n; i++)
+            if(keys[i] == null)
+                throw new IllegalArgumentException();
+        Random random = new Random();
+        long[] hashes = new long[n];
+        MinimalPerfectHash hash = null;
+        for(int attempt=1; hash == null; attempt++){
+            long seed = random.nextLong();
+            for(int i=0; i<n; i++)
+                hashes[i] = hash(keys[i], seed);
+            hash = tryBuild(keys, hashes, seed, attempt == MAX_ATTEMPTS);
+        }
+        return hash;
+    }
+    //The slot of the key, or -1 if the key does not belong to the set (which may also map to a slot)
+    int slot(Object key){
+        long h = hash(key, seed);
+        for(int i=0; i<fallbackHashes.length; i++)
+            if(fallbackHashes[i] == h && fallbackKeys[i].equals(key))
+                return placed + i;
+        for(int level=0; level<levels; level++){
+            long bit = levelStart[level] + position(h, level, levelSize[level]);
+            if((bits[(int)(bit >>> 6)] & (1L << bit)) != 0)
+                return rank(bit);
+        }
+        return -1;
+    }
+    //Bits of the levels, of the rank samples and of the fallback hashes
+    long bits(){
+        return 64L * bits.length + 32L * ranks.length + 64L * fallbackHashes.length;
+    }
+    private int rank(long bit){
+        int word = (int)(bit >>> 6);
+        int rank = ranks[word / BLOCK_WORDS];
+        for(int i=word - word % BLOCK_WORDS; i<word; i++)
+            rank += Long.bitCount(bits[i]);
+        return rank + Long.bitCount(bits[word] & ((1L << bit) - 1));
+    }
+    private static long hash(Object key, long seed){
+        if(key instanceof String)
+            return Hashing.murmur64((String)key, seed);
+        if(key instanceof byte[])
+            return Hashing.murmur64((byte[])key, seed);
+        if(key instanceof Long)
+            return Hashing.mix((Long)key ^ seed);
+        return Hashing.mix((key.hashCode() & 0xFFFFFFFFL) ^ seed);
+    }
+    private static long position(long hash, int level, long size){
+        long h = Hashing.mix(hash ^ (level+1) * 0x9E3779B97F4A7C15L);
+        //Maps the high 32 bits to [0, size) with a multiplication instead of a division
+        return ((h >>> 32) * size) >>> 32;
+    }
+    //null if some keys are still unplaced after MAX_LEVELS levels, unless last: then they go to the fallback array
+    private static MinimalPerfectHash tryBuild(Object[] keys, long[] hashes, long seed, boolean last){
+        long[][] levelBits = new long[MAX_LEVELS][];
+        long[] levelSize = new long[MAX_LEVELS];
+        long[] levelStart = new long[MAX_LEVELS];
+        //Indexes of the keys still unplaced, and of those in the fallback array
+        int[] remaining = new int[hashes.length];
+        for(int i=0; i<remaining.length; i++)
+            remaining[i] = i;
+        int count = remaining.length;
+        int[] fallback = new int[0];
+        int levels = 0;
+        long start = 0;
+        while(count > 0){
+            if(levels == MAX_LEVELS){
+                if(!last)
+                    return null;
+                fallback = append(fallback, remaining, 0, count);
+                break;
+            }
+            long size = ((count + 63L) / 64) * 64;
+            long[] seen = new long[(int)(size / 64)];
+            long[] collided = new long[seen.length];
+            for(int i=0; i<count; i++){
+                long p = position(hashes[remaining[i]], levels, size);
+                int w = (int)(p >>> 6);
+                if((seen[w] & (1L << p)) != 0)
+                    collided[w] |= 1L << p;
+                seen[w] |= 1L << p;
+            }
+            for(int w=0; w<seen.length; w++)
+                seen[w] &= ~collided[w];
+            int left = 0;
+            for(int i=0; i<count; i++){
+                long p = position(hashes[remaining[i]], levels, size);
+                if((seen[(int)(p >>> 6)] & (1L << p)) == 0)
+                    remaining[left++] = remaining[i];
+            }
+            //Equal hashes collide at every level: once they hold up the level, they are moved to the fallback array
+            if(left == count){
+                int unique = separateDuplicates(remaining, count, hashes);
+                if(unique < count){
+                    fallback = append(fallback, remaining, unique, count);
+                    count = unique;
+                    continue;
+                }
+            }
+            levelBits[levels] = seen;
+            levelSize[levels] = size;
+            levelStart[levels] = start;
+            start += size;
+            count = left;
+            levels++;
+        }
+        long[] bits = new long[(int)(start / 64)];
+        for(int level=0; level<levels; level++)
+            System.arraycopy(levelBits[level], 0, bits, (int)(levelStart[level] / 64), levelBits[level].length);
+        Object[] fallbackKeys = new Object[fallback.length];
+        long[] fallbackHashes = new long[fallback.length];
+        for(int i=0; i<fallback.length; i++){
+            fallbackKeys[i] = keys[fallback[i]];
+            fallbackHashes[i] = hashes[fallback[i]];
+        }
+        return new MinimalPerfectHash(seed, levels, levelSize, levelStart, bits, fallbackKeys, fallbackHashes);
+    }
+    //Moves the keys of remaining[0, count) sharing their hash after the others, returning the number of the others
+    private static int separateDuplicates(int[] remaining, int count, long[] hashes){
+        long[] sorted = new long[count];
+        for(int i=0; i<count; i++)
+            sorted[i] = hashes[remaining[i]];
+        Arrays.sort(sorted);
+        int[] unique = new int[count];
+        int[] duplicates = new int[count];
+        int u = 0, d = 0;
+        for(int i=0; i<count; i++){
+            long h = hashes[remaining[i]];
+            int pos = Arrays.binarySearch(sorted, h);
+            if((pos > 0 && sorted[pos-1] == h) || (pos < count-1 && sorted[pos+1] == h))
+                duplicates[d++] = remaining[i];
+            else
+                unique[u++] = remaining[i];
+        }
+        System.arraycopy(unique, 0, remaining, 0, u);
+        System.arraycopy(duplicates, 0, remaining, u, d);
+        return u;
+    }
+    private static int[] append(int[] a, int[] b, int from, int to){
+        int[] x = Arrays.copyOf(a, a.length + to - from);
+        System.arraycopy(b, from, x, a.length, to - from);
+        return x;
+    }
+}
@@ -0,0 +1,650 @@
+package org.sample;
+
+/**
+ * Mapping between int keys and int values, without boxing.
+ */
+interface IntIntMap extends Container{
+    /**
+     * @return The value associated to the given key; 0 if no association is found.
+     */
+    int get(int key);
+
+    /**
+     * @return The value associated to the given key; defaultValue if no association is found.
+     */
+    int getOrDefault(int key, int defaultValue);
+
+    /**
+     * Add a new association key-value to the map.
+     * @return The old value associated to the given key; 0 if no association was found.
+     */
+    int put(int key, int value);
+
+    /**
+     * Add delta to the value associated to the given key, starting from 0 if no association is found.
+     * @return The new value associated to the given key.
+     */
+    int addTo(int key, int delta);
+
+    /**
+     * Remove the association with the given key.
+     * @return The value of the removed association; 0 if no association was found.
+     */
+    int remove(int key);
+
+    boolean containsKey(int key);
+
+    int size();
+
+    /**
+     * @return All the keys found in the map.
+     */
+    int[] keys();
+}
+
+/**
+ * Mapping between int keys and object values, without boxing the keys.
+ */
+interface IntObjectMap extends Container{
+    /**
+     * @return The value associated to the given key; null if no association is found.
+     */
+    Object get(int key);
+
+    /**
+     * Add a new association key-value to the map.
+     * @return The old value associated to the given key; null if no association was found.
+     * @throws IllegalArgumentException If the given value is null.
+     */
+    Object put(int key, Object value);
+
+    /**
+     * Remove the association with the given key.
+     * @return The value of the removed association; null if no association was found.
+     */
+    Object remove(int key);
+
+    boolean containsKey(int key);
+
+    int size();
+
+    /**
+     * @return All the keys found in the map.
+     */
+    int[] keys();
+}
+
+/**
+ * Mapping between long keys and long values, without boxing.
+ */
+interface LongLongMap extends Container{
+    /**
+     * @return The value associated to the given key; 0 if no association is found.
+     */
+    long get(long key);
+
+    /**
+     * @return The value associated to the given key; defaultValue if no association is found.
+     */
+    long getOrDefault(long key, long defaultValue);
+
+    /**
+     * Add a new association key-value to the map.
+     * @return The old value associated to the given key; 0 if no association was found.
+     */
+    long put(long key, long value);
+
+    /**
+     * Add delta to the value associated to the given key, starting from 0 if no association is found.
+     * @return The new value associated to the given key.
+     */
+    long addTo(long key, long delta);
+
+    /**
+     * Remove the association with the given key.
+     * @return The value of the removed association; 0 if no association was found.
+     */
+    long remove(long key);
+
+    boolean containsKey(long key);
+
+    int size();
+
+    /**
+     * @return All the keys found in the map.
+     */
+    long[] keys();
+}
+
+/**
+ * Implementation using open addressing with linear probing over parallel int arrays.
+ * Key 0 marks an empty slot, so the association for key 0 is kept aside.
+ * Removal shifts the following entries back, so no tombstone is ever left.
+ * @author Scala28
+ */
+class IntIntHashMap implements IntIntMap{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private int count;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private final float maxLoadFactor;
+
+    public IntIntHashMap(){
+        this(INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    public IntIntHashMap(int dim){
+        this(dim, DEFAULT_LOAD_FACTOR);
+    }
+    public IntIntHashMap(int dim, float maxLoadFactor){
+        if(dim <= 0 || !(maxLoadFactor > 0 && maxLoadFactor < 1))
+            throw new IllegalArgumentException();
+        this.maxLoadFactor = maxLoadFactor;
+        allocate(PrimitiveHashing.tableSizeFor(dim / maxLoadFactor));
+    }
+    public void makeEmpty(){
+        for(int i=0; i<keys.length; i++)
+            keys[i] = 0;
+        count = 0;
+        hasZeroKey = false;
+    }
+    public boolean isEmpty(){return size() == 0;}
+    public int size(){return hasZeroKey ? count+1 : count;}
+    //O(1)
+    public int get(int key){
+        return getOrDefault(key, 0);
+    }
+    //O(1)
+    public int getOrDefault(int key, int defaultValue){
+        if(key == 0)
+            return hasZeroKey ? zeroValue : defaultValue;
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+    public boolean containsKey(int key){
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+    //O(1) - amortized analysis
+    public int put(int key, int value){
+        if(key == 0){
+            int old = hasZeroKey ? zeroValue : 0;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key){
+                int old = values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index+1) & mask;
+        }
+        if(count == threshold)
+            PrimitiveHashing.checkGrowth(keys.length);
+        keys[index] = key;
+        values[index] = value;
+        if(++count > threshold)
+            grow();
+        return 0;
+    }
+    //O(1) - amortized analysis
+    public int addTo(int key, int delta){
+        if(key == 0){
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key)
+                return values[index] += delta;
+            index = (index+1) & mask;
+        }
+        if(count == threshold)
+            PrimitiveHashing.checkGrowth(keys.length);
+        keys[index] = key;
+        values[index] = delta;
+        if(++count > threshold)
+            grow();
+        return delta;
+    }
+    //O(1)
+    public int remove(int key){
+        if(key == 0){
+            int old = hasZeroKey ? zeroValue : 0;
+            hasZeroKey = false;
+            return old;
+        }
+        int index = indexOf(key);
+        if(index < 0)
+            return 0;
+        int old = values[index];
+        shiftKeys(index);
+        count--;
+        return old;
+    }
+    public int[] keys(){
+        int[] ret = new int[size()];
+        int j = 0;
+        if(hasZeroKey)
+            ret[j++] = 0;
+        for(int i=0; i<keys.length; i++)
+            if(keys[i] != 0)
+                ret[j++] = keys[i];
+        return ret;
+    }
+    private int indexOf(int key){
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key)
+                return index;
+            index = (index+1) & mask;
+        }
+        return -1;
+    }
+    //Moves back every following entry whose probe sequence passes through the freed slot
+    private void shiftKeys(int free){
+        int index = free;
+        while(true){
+            index = (index+1) & mask;
+            int key = keys[index];
+            if(key == 0){
+                keys[free] = 0;
+                return;
+            }
+            int home = PrimitiveHashing.hash(key, shift);
+            if(PrimitiveHashing.canShift(home, free, index, mask)){
+                keys[free] = key;
+                values[free] = values[index];
+                free = index;
+            }
+        }
+    }
+    private void grow(){
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length*2);
+        for(int i=0; i<oldKeys.length; i++){
+            if(oldKeys[i] == 0)
+                continue;
+            int index = PrimitiveHashing.hash(oldKeys[i], shift);
+            while(keys[index] != 0)
+                index = (index+1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+    private void allocate(int length){
+        keys = new int[length];
+        values = new int[length];
+        mask = length-1;
+        shift = 32 - Integer.numberOfTrailingZeros(length);
+        threshold = Math.min((int)(length * maxLoadFactor), length-1);
+    }
+}
+
+/**
+ * Implementation using open addressing with linear probing over an int key array and an object value array.
+ * Key 0 marks an empty slot, so the association for key 0 is kept aside.
+ * Removal shifts the following entries back, so no tombstone is ever left.
+ * @author Scala28
+ */
+class IntObjectHashMap implements IntObjectMap{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private int count;
+    private Object zeroValue;
+    private final float maxLoadFactor;
+
+    public IntObjectHashMap(){
+        this(INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    public IntObjectHashMap(int dim){
+        this(dim, DEFAULT_LOAD_FACTOR);
+    }
+    public IntObjectHashMap(int dim, float maxLoadFactor){
+        if(dim <= 0 || !(maxLoadFactor > 0 && maxLoadFactor < 1))
+            throw new IllegalArgumentException();
+        this.maxLoadFactor = maxLoadFactor;
+        allocate(PrimitiveHashing.tableSizeFor(dim / maxLoadFactor));
+    }
+    public void makeEmpty(){
+        for(int i=0; i<keys.length; i++){
+            keys[i] = 0;
+            values[i] = null;
+        }
+        count = 0;
+        zeroValue = null;
+    }
+    public boolean isEmpty(){return size() == 0;}
+    public int size(){return zeroValue != null ? count+1 : count;}
+    //O(1)
+    public Object get(int key){
+        if(key == 0)
+            return zeroValue;
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+    public boolean containsKey(int key){
+        return get(key) != null;
+    }
+    //O(1) - amortized analysis
+    public Object put(int key, Object value){
+        if(value == null)
+            throw new IllegalArgumentException();
+        if(key == 0){
+            Object old = zeroValue;
+            zeroValue = value;
+            return old;
+        }
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key){
+                Object old = values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index+1) & mask;
+        }
+        if(count == threshold)
+            PrimitiveHashing.checkGrowth(keys.length);
+        keys[index] = key;
+        values[index] = value;
+        if(++count > threshold)
+            grow();
+        return null;
+    }
+    //O(1)
+    public Object remove(int key){
+        if(key == 0){
+            Object old = zeroValue;
+            zeroValue = null;
+            return old;
+        }
+        int index = indexOf(key);
+        if(index < 0)
+            return null;
+        Object old = values[index];
+        shiftKeys(index);
+        count--;
+        return old;
+    }
+    public int[] keys(){
+        int[] ret = new int[size()];
+        int j = 0;
+        if(zeroValue != null)
+            ret[j++] = 0;
+        for(int i=0; i<keys.length; i++)
+            if(keys[i] != 0)
+                ret[j++] = keys[i];
+        return ret;
+    }
+    private int indexOf(int key){
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key)
+                return index;
+            index = (index+1) & mask;
+        }
+        return -1;
+    }
+    //Moves back every following entry whose probe sequence passes through the freed slot
+    private void shiftKeys(int free){
+        int index = free;
+        while(true){
+            index = (index+1) & mask;
+            int key = keys[index];
+            if(key == 0){
+                keys[free] = 0;
+                values[free] = null;
+                return;
+            }
+            int home = PrimitiveHashing.hash(key, shift);
+            if(PrimitiveHashing.canShift(home, free, index, mask)){
+                keys[free] = key;
+                values[free] = values[index];
+                free = index;
+            }
+        }
+    }
+    private void grow(){
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length*2);
+        for(int i=0; i<oldKeys.length; i++){
+            if(oldKeys[i] == 0)
+                continue;
+            int index = PrimitiveHashing.hash(oldKeys[i], shift);
+            while(keys[index] != 0)
+                index = (index+1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+    private void allocate(int length){
+        keys = new int[length];
+        values = new Object[length];
+        mask = length-1;
+        shift = 32 - Integer.numberOfTrailingZeros(length);
+        threshold = Math.min((int)(length * maxLoadFactor), length-1);
+    }
+}
+
+/**
+ * Implementation using open addressing with linear probing over parallel long arrays.
+ * Key 0 marks an empty slot, so the association for key 0 is kept aside.
+ * Removal shifts the following entries back, so no tombstone is ever left.
+ * @author Scala28
+ */
+class LongLongHashMap implements LongLongMap{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int shift;
+    private int threshold;
+    private int count;
+    private boolean hasZeroKey;
+    private long zeroValue;
+    private final float maxLoadFactor;
+
+    public LongLongHashMap(){
+        this(INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    public LongLongHashMap(int dim){
+        this(dim, DEFAULT_LOAD_FACTOR);
+    }
+    public LongLongHashMap(int dim, float maxLoadFactor){
+        if(dim <= 0 || !(maxLoadFactor > 0 && maxLoadFactor < 1))
+            throw new IllegalArgumentException();
+        this.maxLoadFactor = maxLoadFactor;
+        allocate(PrimitiveHashing.tableSizeFor(dim / maxLoadFactor));
+    }
+    public void makeEmpty(){
+        for(int i=0; i<keys.length; i++)
+            keys[i] = 0;
+        count = 0;
+        hasZeroKey = false;
+    }
+    public boolean isEmpty(){return size() == 0;}
+    public int size(){return hasZeroKey ? count+1 : count;}
+    //O(1)
+    public long get(long key){
+        return getOrDefault(key, 0);
+    }
+    //O(1)
+    public long getOrDefault(long key, long defaultValue){
+        if(key == 0)
+            return hasZeroKey ? zeroValue : defaultValue;
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+    public boolean containsKey(long key){
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+    //O(1) - amortized analysis
+    public long put(long key, long value){
+        if(key == 0){
+            long old = hasZeroKey ? zeroValue : 0;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key){
+                long old = values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index+1) & mask;
+        }
+        if(count == threshold)
+            PrimitiveHashing.checkGrowth(keys.length);
+        keys[index] = key;
+        values[index] = value;
+        if(++count > threshold)
+            grow();
+        return 0;
+    }
+    //O(1) - amortized analysis
+    public long addTo(long key, long delta){
+        if(key == 0){
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key)
+                return values[index] += delta;
+            index = (index+1) & mask;
+        }
+        if(count == threshold)
+            PrimitiveHashing.checkGrowth(keys.length);
+        keys[index] = key;
+        values[index] = delta;
+        if(++count > threshold)
+            grow();
+        return delta;
+    }
+    //O(1)
+    public long remove(long key){
+        if(key == 0){
+            long old = hasZeroKey ? zeroValue : 0;
+            hasZeroKey = false;
+            return old;
+        }
+        int index = indexOf(key);
+        if(index < 0)
+            return 0;
+        long old = values[index];
+        shiftKeys(index);
+        count--;
+        return old;
+    }
+    public long[] keys(){
+        long[] ret = new long[size()];
+        int j = 0;
+        if(hasZeroKey)
+            ret[j++] = 0;
+        for(int i=0; i<keys.length; i++)
+            if(keys[i] != 0)
+                ret[j++] = keys[i];
+        return ret;
+    }
+    private int indexOf(long key){
+        int index = PrimitiveHashing.hash(key, shift);
+        while(keys[index] != 0){
+            if(keys[index] == key)
+                return index;
+            index = (index+1) & mask;
+        }
+        return -1;
+    }
+    //Moves back every following entry whose probe sequence passes through the freed slot
+    private void shiftKeys(int free){
+        int index = free;
+        while(true){
+            index = (index+1) & mask;
+            long key = keys[index];
+            if(key == 0){
+                keys[free] = 0;
+                return;
+            }
+            int home = PrimitiveHashing.hash(key, shift);
+            if(PrimitiveHashing.canShift(home, free, index, mask)){
+                keys[free] = key;
+                values[free] = values[index];
+                free = index;
+            }
+        }
+    }
+    private void grow(){
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length*2);
+        for(int i=0; i<oldKeys.length; i++){
+            if(oldKeys[i] == 0)
+                continue;
+            int index = PrimitiveHashing.hash(oldKeys[i], shift);
+            while(keys[index] != 0)
+                index = (index+1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+    private void allocate(int length){
+        keys = new long[length];
+        values = new long[length];
+        mask = length-1;
+        shift = 32 - Integer.numberOfTrailingZeros(length);
+        threshold = Math.min((int)(length * maxLoadFactor), length-1);
+    }
+}
+
+/**
+ * Index functions shared by the primitive hash maps.
+ * @author Scala28
+ */
+class PrimitiveHashing{
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    //Fibonacci hashing: the top bits of the product are well mixed even for sequential keys
+    static int hash(int key, int shift){
+        return (key * 0x9E3779B9) >>> shift;
+    }
+    static int hash(long key, int shift){
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> (shift + 32));
+    }
+    //True if an entry found at index, whose home slot is home, may move back to the free slot
+    static boolean canShift(int home, int free, int index, int mask){
+        return ((index - home) & mask) >= ((index - free) & mask);
+    }
+    //Called before an insert that will double the table: fails while the map is still unchanged
+    static void checkGrowth(int length){
+        if(length == MAX_CAPACITY)
+            throw new IllegalStateException();
+    }
+    static int tableSizeFor(float dim){
+        if(dim > MAX_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 2;
+        while(n < dim)
+            n <<= 1;
+        return n;
+    }
+}
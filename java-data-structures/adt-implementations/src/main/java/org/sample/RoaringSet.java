@@ -0,0 +1,794 @@
+package org.sample;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Compressed implementation of SortedSet for Integer elements, as a Roaring bitmap.
+ * The 32 bit space is split into chunks of 2^16 values sharing their high 16 bits, and every chunk
+ * keeps its low 16 bits in the cheapest of three forms: a sorted char array up to 4096 values,
+ * a bitmap of 1024 words beyond that, or a list of runs for long stretches of consecutive values
+ * (built by runOptimize). An element takes between a few bits and 2 bytes, instead of a boxed Integer
+ * and a reference.
+ * union, intersection and subtraction work chunk by chunk, on whole words for the bitmaps.
+ * Elements are ordered as Integer.compareTo does, negative values first.
+ * @author Scala28
+ */
+class RoaringSet implements SortedSet{
+    private static final int INITIAL_CAPACITY = 4;
+    //Flipping the sign bit makes the unsigned order of the chunk keys match the signed order of the elements
+    private static final int SIGN = 0x80000000;
+    private char[] keys;
+    private Chunk[] chunks;
+    private int size;
+    private int cardinality;
+
+    public RoaringSet(){
+        makeEmpty();
+    }
+    public void makeEmpty(){
+        keys = new char[INITIAL_CAPACITY];
+        chunks = new Chunk[INITIAL_CAPACITY];
+        size = 0;
+        cardinality = 0;
+    }
+    public boolean isEmpty(){return cardinality == 0;}
+    /**
+     * @return The number of elements.
+     */
+    public int size(){return cardinality;}
+    /**
+     * @throws IllegalArgumentException If obj is not an Integer.
+     */
+    //O(logn) to find the chunk, O(1) to O(4096) inside it
+    public void add(Object obj){
+        add(toInt(obj));
+    }
+    /**
+     * @throws IllegalArgumentException If obj is not an Integer.
+     */
+    public void add(Comparable obj){
+        add(toInt(obj));
+    }
+    public void add(int x){
+        int u = x ^ SIGN;
+        int i = search(u >>> 16);
+        if(i < 0){
+            i = -i-1;
+            if(size == keys.length){
+                keys = Arrays.copyOf(keys, size*2);
+                chunks = Arrays.copyOf(chunks, size*2);
+            }
+            System.arraycopy(keys, i, keys, i+1, size-i);
+            System.arraycopy(chunks, i, chunks, i+1, size-i);
+            keys[i] = (char)(u >>> 16);
+            chunks[i] = new ArrayChunk();
+            size++;
+        }
+        int low = u & 0xFFFF;
+        if(!chunks[i].contains(low)){
+            chunks[i] = chunks[i].add(low);
+            cardinality++;
+        }
+    }
+    //O(logn)
+    public boolean contains(Object obj){
+        if(obj == null)
+            throw new IllegalArgumentException();
+        return obj instanceof Integer && contains(((Integer)obj).intValue());
+    }
+    public boolean contains(int x){
+        int u = x ^ SIGN;
+        int i = search(u >>> 16);
+        return i >= 0 && chunks[i].contains(u & 0xFFFF);
+    }
+    //O(logn)
+    public Comparable floor(Comparable key){
+        int u = toInt(key) ^ SIGN;
+        int i = search(u >>> 16);
+        if(i >= 0){
+            int low = chunks[i].floor(u & 0xFFFF);
+            if(low >= 0)
+                return valueOf(i, low);
+            i--;
+        }else
+            i = -i-2;
+        return i >= 0 ? valueOf(i, chunks[i].last()) : null;
+    }
+    //O(logn)
+    public Comparable ceiling(Comparable key){
+        int u = toInt(key) ^ SIGN;
+        int i = search(u >>> 16);
+        if(i >= 0){
+            int low = chunks[i].ceiling(u & 0xFFFF);
+            if(low >= 0)
+                return valueOf(i, low);
+            i++;
+        }else
+            i = -i-1;
+        return i < size ? valueOf(i, chunks[i].first()) : null;
+    }
+    //O(logn)
+    public Comparable lower(Comparable key){
+        int x = toInt(key);
+        return x == Integer.MIN_VALUE ? null : floor(x-1);
+    }
+    //O(logn)
+    public Comparable higher(Comparable key){
+        int x = toInt(key);
+        return x == Integer.MAX_VALUE ? null : ceiling(x+1);
+    }
+    //O(1)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptySetException();
+        return valueOf(0, chunks[0].first());
+    }
+    //O(1)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptySetException();
+        return valueOf(size-1, chunks[size-1].last());
+    }
+    //O(logn) to position the cursor, then a search inside the chunk for every element
+    public Cursor range(Comparable from, Comparable to){
+        Integer start = from == null ? (isEmpty() ? null : (Integer)first()) : (Integer)ceiling(from);
+        //The end is exclusive, so the range stops at the last element lower than it
+        Integer end = to == null ? (isEmpty() ? null : (Integer)last()) : (Integer)lower(to);
+        if(start == null || end == null || start > end)
+            return new RoaringCursor(size, 0, 0);
+        int u = start ^ SIGN;
+        return new RoaringCursor(search(u >>> 16), u & 0xFFFF, end);
+    }
+    //O(n)
+    public Comparable[] toSortedArray(){
+        int[] values = toIntArray();
+        Comparable[] x = new Comparable[values.length];
+        for(int i=0; i<values.length; i++)
+            x[i] = values[i];
+        return x;
+    }
+    public Object[] toArray(){
+        return toSortedArray();
+    }
+    /**
+     * @return The elements in ascending order, unboxed.
+     */
+    //O(n)
+    public int[] toIntArray(){
+        int[] x = new int[cardinality];
+        int n = 0;
+        for(int i=0; i<size; i++)
+            n = chunks[i].fill(x, n, (keys[i] << 16) ^ SIGN);
+        return x;
+    }
+    /**
+     * Convert to runs the chunks that take less memory that way. Adding to a run chunk
+     * expands it back, so this is best called once the set is built.
+     */
+    //O(n)
+    public void runOptimize(){
+        for(int i=0; i<size; i++)
+            chunks[i] = chunks[i].runOptimize();
+    }
+    /**
+     * @return An estimate of the memory taken by the elements, in bytes.
+     */
+    public long sizeInBytes(){
+        long bytes = 6L * keys.length;
+        for(int i=0; i<size; i++)
+            bytes += chunks[i].sizeInBytes();
+        return bytes;
+    }
+    /**
+     * Build a set with the given elements, dropping the duplicates, and run optimize it.
+     * @throws IllegalArgumentException If the array is null.
+     */
+    //O(nlogn)
+    public static RoaringSet of(int[] elements){
+        if(elements == null)
+            throw new IllegalArgumentException();
+        int[] sorted = elements.clone();
+        Arrays.sort(sorted);
+        RoaringSet x = new RoaringSet();
+        int n = 0;
+        //Chunk boundaries are found on the sorted values, and every chunk is built in one go from a
+        //buffer shared by all the chunks, which copy the values they keep
+        char[] lows = new char[Math.min(sorted.length, 1 << 16)];
+        for(int i=0; i<sorted.length; ){
+            int high = (sorted[i] ^ SIGN) >>> 16;
+            int j = i;
+            int count = 0;
+            while(j < sorted.length && ((sorted[j] ^ SIGN) >>> 16) == high){
+                char low = (char)(sorted[j] ^ SIGN);
+                if(count == 0 || lows[count-1] != low)
+                    lows[count++] = low;
+                j++;
+            }
+            x.appendChunk(high, Chunk.fromSorted(lows, count));
+            n += count;
+            i = j;
+        }
+        x.cardinality = n;
+        x.runOptimize();
+        return x;
+    }
+    /**
+     * @throws IllegalArgumentException If the array is null or one of its elements is not an Integer.
+     */
+    //O(nlogn)
+    public static RoaringSet of(Comparable[] elements){
+        if(elements == null)
+            throw new IllegalArgumentException();
+        int[] values = new int[elements.length];
+        for(int i=0; i<elements.length; i++)
+            values[i] = toInt(elements[i]);
+        return of(values);
+    }
+    //O(n+m) chunks, each merged in O(4096) at most; operands other than RoaringSet are converted first
+    public static SortedSet union(SortedSet s1, SortedSet s2){
+        RoaringSet r1 = roaring(s1), r2 = roaring(s2);
+        RoaringSet x = new RoaringSet();
+        int i = 0, j = 0;
+        while(i < r1.size || j < r2.size){
+            int k1 = i < r1.size ? r1.keys[i] : Integer.MAX_VALUE;
+            int k2 = j < r2.size ? r2.keys[j] : Integer.MAX_VALUE;
+            if(k1 < k2)
+                x.appendChunk(k1, r1.chunks[i++].copy());
+            else if(k1 > k2)
+                x.appendChunk(k2, r2.chunks[j++].copy());
+            else
+                x.appendChunk(k1, Chunk.union(r1.chunks[i++], r2.chunks[j++]));
+        }
+        return x.countCardinality();
+    }
+    //O(n+m) chunks, each intersected in O(4096) at most
+    public static SortedSet intersection(SortedSet s1, SortedSet s2){
+        RoaringSet r1 = roaring(s1), r2 = roaring(s2);
+        RoaringSet x = new RoaringSet();
+        int i = 0, j = 0;
+        while(i < r1.size && j < r2.size){
+            if(r1.keys[i] < r2.keys[j])
+                i++;
+            else if(r1.keys[i] > r2.keys[j])
+                j++;
+            else{
+                Chunk c = Chunk.intersection(r1.chunks[i], r2.chunks[j]);
+                if(c.cardinality() > 0)
+                    x.appendChunk(r1.keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return x.countCardinality();
+    }
+    //O(n+m) chunks, each subtracted in O(4096) at most
+    public static SortedSet subtraction(SortedSet s1, SortedSet s2){
+        RoaringSet r1 = roaring(s1), r2 = roaring(s2);
+        RoaringSet x = new RoaringSet();
+        int j = 0;
+        for(int i=0; i<r1.size; i++){
+            while(j < r2.size && r2.keys[j] < r1.keys[i])
+                j++;
+            Chunk c = j < r2.size && r2.keys[j] == r1.keys[i]
+                    ? Chunk.subtraction(r1.chunks[i], r2.chunks[j]) : r1.chunks[i].copy();
+            if(c.cardinality() > 0)
+                x.appendChunk(r1.keys[i], c);
+        }
+        return x.countCardinality();
+    }
+    private static RoaringSet roaring(SortedSet s){
+        if(s == null)
+            throw new IllegalArgumentException();
+        return s instanceof RoaringSet ? (RoaringSet)s : of(s.toSortedArray());
+    }
+    //Adds a chunk after all the others; the cardinality is left to the caller
+    private void appendChunk(int key, Chunk chunk){
+        if(size == keys.length){
+            keys = Arrays.copyOf(keys, size*2);
+            chunks = Arrays.copyOf(chunks, size*2);
+        }
+        keys[size] = (char)key;
+        chunks[size++] = chunk;
+    }
+    private RoaringSet countCardinality(){
+        cardinality = 0;
+        for(int i=0; i<size; i++)
+            cardinality += chunks[i].cardinality();
+        return this;
+    }
+    //Position of the chunk with the given key, or -(insertion point)-1 if it is not found
+    private int search(int key){
+        int low = 0, high = size-1;
+        while(low <= high){
+            int mid = (low+high) >>> 1;
+            if(keys[mid] < key)
+                low = mid+1;
+            else if(keys[mid] > key)
+                high = mid-1;
+            else
+                return mid;
+        }
+        return -(low+1);
+    }
+    private Integer valueOf(int chunk, int low){
+        return ((keys[chunk] << 16) | low) ^ SIGN;
+    }
+    private static int toInt(Object obj){
+        if(!(obj instanceof Integer))
+            throw new IllegalArgumentException();
+        return (Integer)obj;
+    }
+
+    //Walks the elements from a chunk and a low value up to a last element included
+    private class RoaringCursor implements Cursor{
+        private int chunk;
+        private int low;
+        private final int last;
+        private Integer current;
+        private boolean done;
+        public RoaringCursor(int chunk, int low, int last){
+            this.chunk = chunk;
+            this.low = low;
+            this.last = last;
+            done = chunk >= size;
+        }
+        public boolean hasNext(){return !done;}
+        public Comparable next(){
+            if(done)
+                throw new NoSuchElementException();
+            int found = chunks[chunk].ceiling(low);
+            while(found < 0){
+                chunk++;
+                found = chunks[chunk].first();
+            }
+            current = valueOf(chunk, found);
+            low = found + 1;
+            if(current == last)
+                done = true;
+            else if(low > 0xFFFF){
+                chunk++;
+                low = 0;
+            }
+            return current;
+        }
+        public Object getValue(){
+            if(current == null)
+                throw new IllegalStateException();
+            return current;
+        }
+    }
+
+    /**
+     * Set of the low 16 bits of the elements sharing the same high 16 bits. Values are ints in [0, 65535].
+     */
+    private abstract static class Chunk{
+        //Greatest cardinality kept as an array: beyond it a bitmap is smaller
+        protected static final int ARRAY_MAX = 4096;
+        protected static final int WORDS = 1024;
+        public abstract int cardinality();
+        public abstract boolean contains(int low);
+        //Returns the chunk holding the new value too, this one or a conversion of it; low must not be contained
+        public abstract Chunk add(int low);
+        //The smallest value greater than or equal to low; -1 if there is none
+        public abstract int ceiling(int low);
+        //The greatest value less than or equal to low; -1 if there is none
+        public abstract int floor(int low);
+        public abstract int first();
+        public abstract int last();
+        //Writes the values combined with the high bits, returns the next position
+        public abstract int fill(int[] x, int n, int high);
+        public abstract Chunk copy();
+        public abstract int sizeInBytes();
+        //An array or bitmap chunk with the same values, this one if it already is
+        public abstract Chunk expand();
+        public abstract int runCount();
+
+        //The cheapest representation of the values between array or bitmap, and runs
+        public Chunk runOptimize(){
+            int runs = runCount();
+            int expanded = cardinality() <= ARRAY_MAX ? 2 * cardinality() : 8 * WORDS;
+            if(2 + 4 * runs < expanded)
+                return this instanceof RunChunk ? this : RunChunk.of(this, runs);
+            return expand();
+        }
+        public static Chunk fromSorted(char[] values, int n){
+            if(n <= ARRAY_MAX)
+                return new ArrayChunk(Arrays.copyOf(values, Math.max(n, 1)), n);
+            BitmapChunk x = new BitmapChunk();
+            for(int i=0; i<n; i++)
+                x.words[values[i] >>> 6] |= 1L << values[i];
+            x.cardinality = n;
+            return x;
+        }
+        public static Chunk union(Chunk c1, Chunk c2){
+            Chunk a = c1.expand(), b = c2.expand();
+            if(a instanceof BitmapChunk && b instanceof BitmapChunk){
+                long[] x = new long[WORDS];
+                long[] w1 = ((BitmapChunk)a).words, w2 = ((BitmapChunk)b).words;
+                int card = 0;
+                for(int i=0; i<WORDS; i++){
+                    x[i] = w1[i] | w2[i];
+                    card += Long.bitCount(x[i]);
+                }
+                return new BitmapChunk(x, card);
+            }
+            if(a instanceof BitmapChunk || b instanceof BitmapChunk){
+                BitmapChunk bitmap = (BitmapChunk)(a instanceof BitmapChunk ? a : b).copy();
+                ArrayChunk array = (ArrayChunk)(a instanceof BitmapChunk ? b : a);
+                for(int i=0; i<array.n; i++)
+                    bitmap.set(array.values[i]);
+                return bitmap;
+            }
+            ArrayChunk x = (ArrayChunk)a, y = (ArrayChunk)b;
+            if(x.n + y.n > ARRAY_MAX){
+                BitmapChunk bitmap = new BitmapChunk();
+                for(int i=0; i<x.n; i++)
+                    bitmap.set(x.values[i]);
+                for(int i=0; i<y.n; i++)
+                    bitmap.set(y.values[i]);
+                return bitmap.cardinality <= ARRAY_MAX ? bitmap.toArrayChunk() : bitmap;
+            }
+            char[] values = new char[x.n + y.n];
+            int i = 0, j = 0, n = 0;
+            while(i < x.n && j < y.n){
+                if(x.values[i] < y.values[j])
+                    values[n++] = x.values[i++];
+                else if(x.values[i] > y.values[j])
+                    values[n++] = y.values[j++];
+                else{
+                    values[n++] = x.values[i++];
+                    j++;
+                }
+            }
+            while(i < x.n)
+                values[n++] = x.values[i++];
+            while(j < y.n)
+                values[n++] = y.values[j++];
+            return new ArrayChunk(values, n);
+        }
+        public static Chunk intersection(Chunk c1, Chunk c2){
+            Chunk a = c1.expand(), b = c2.expand();
+            if(a instanceof BitmapChunk && b instanceof BitmapChunk){
+                long[] x = new long[WORDS];
+                long[] w1 = ((BitmapChunk)a).words, w2 = ((BitmapChunk)b).words;
+                int card = 0;
+                for(int i=0; i<WORDS; i++){
+                    x[i] = w1[i] & w2[i];
+                    card += Long.bitCount(x[i]);
+                }
+                BitmapChunk bitmap = new BitmapChunk(x, card);
+                return card <= ARRAY_MAX ? bitmap.toArrayChunk() : bitmap;
+            }
+            if(a instanceof BitmapChunk || b instanceof BitmapChunk){
+                BitmapChunk bitmap = (BitmapChunk)(a instanceof BitmapChunk ? a : b);
+                ArrayChunk array = (ArrayChunk)(a instanceof BitmapChunk ? b : a);
+                char[] values = new char[Math.max(array.n, 1)];
+                int n = 0;
+                for(int i=0; i<array.n; i++)
+                    if(bitmap.contains(array.values[i]))
+                        values[n++] = array.values[i];
+                return new ArrayChunk(values, n);
+            }
+            ArrayChunk x = (ArrayChunk)a, y = (ArrayChunk)b;
+            char[] values = new char[Math.max(Math.min(x.n, y.n), 1)];
+            int i = 0, j = 0, n = 0;
+            while(i < x.n && j < y.n){
+                if(x.values[i] < y.values[j])
+                    i++;
+                else if(x.values[i] > y.values[j])
+                    j++;
+                else{
+                    values[n++] = x.values[i++];
+                    j++;
+                }
+            }
+            return new ArrayChunk(values, n);
+        }
+        public static Chunk subtraction(Chunk c1, Chunk c2){
+            Chunk a = c1.expand(), b = c2.expand();
+            if(a instanceof BitmapChunk){
+                BitmapChunk bitmap = (BitmapChunk)a.copy();
+                if(b instanceof BitmapChunk){
+                    long[] w2 = ((BitmapChunk)b).words;
+                    int card = 0;
+                    for(int i=0; i<WORDS; i++){
+                        bitmap.words[i] &= ~w2[i];
+                        card += Long.bitCount(bitmap.words[i]);
+                    }
+                    bitmap.cardinality = card;
+                }else{
+                    ArrayChunk array = (ArrayChunk)b;
+                    for(int i=0; i<array.n; i++)
+                        bitmap.clear(array.values[i]);
+                }
+                return bitmap.cardinality <= ARRAY_MAX ? bitmap.toArrayChunk() : bitmap;
+            }
+            ArrayChunk x = (ArrayChunk)a;
+            char[] values = new char[Math.max(x.n, 1)];
+            int n = 0;
+            if(b instanceof BitmapChunk){
+                for(int i=0; i<x.n; i++)
+                    if(!b.contains(x.values[i]))
+                        values[n++] = x.values[i];
+            }else{
+                ArrayChunk y = (ArrayChunk)b;
+                int j = 0;
+                for(int i=0; i<x.n; i++){
+                    while(j < y.n && y.values[j] < x.values[i])
+                        j++;
+                    if(j == y.n || y.values[j] != x.values[i])
+                        values[n++] = x.values[i];
+                }
+            }
+            return new ArrayChunk(values, n);
+        }
+    }
+
+    //Sorted values, up to ARRAY_MAX of them
+    private static class ArrayChunk extends Chunk{
+        private char[] values;
+        private int n;
+        public ArrayChunk(){
+            this(new char[INITIAL_CAPACITY], 0);
+        }
+        public ArrayChunk(char[] values, int n){
+            this.values = values;
+            this.n = n;
+        }
+        public int cardinality(){return n;}
+        public boolean contains(int low){return search(low) >= 0;}
+        public Chunk add(int low){
+            if(n == ARRAY_MAX){
+                BitmapChunk bitmap = toBitmapChunk();
+                bitmap.set(low);
+                return bitmap;
+            }
+            int i = -search(low)-1;
+            if(n == values.length)
+                values = Arrays.copyOf(values, Math.min(2*n, ARRAY_MAX));
+            System.arraycopy(values, i, values, i+1, n-i);
+            values[i] = (char)low;
+            n++;
+            return this;
+        }
+        public int ceiling(int low){
+            int i = search(low);
+            if(i < 0)
+                i = -i-1;
+            return i < n ? values[i] : -1;
+        }
+        public int floor(int low){
+            int i = search(low);
+            if(i < 0)
+                i = -i-2;
+            return i >= 0 ? values[i] : -1;
+        }
+        public int first(){return values[0];}
+        public int last(){return values[n-1];}
+        public int fill(int[] x, int pos, int high){
+            for(int i=0; i<n; i++)
+                x[pos++] = high | values[i];
+            return pos;
+        }
+        public Chunk copy(){return new ArrayChunk(values.clone(), n);}
+        public int sizeInBytes(){return 2 * values.length;}
+        public Chunk expand(){return this;}
+        public int runCount(){
+            int runs = n > 0 ? 1 : 0;
+            for(int i=1; i<n; i++)
+                if(values[i] != values[i-1] + 1)
+                    runs++;
+            return runs;
+        }
+        private BitmapChunk toBitmapChunk(){
+            BitmapChunk bitmap = new BitmapChunk();
+            for(int i=0; i<n; i++)
+                bitmap.set(values[i]);
+            return bitmap;
+        }
+        private int search(int low){
+            int lo = 0, hi = n-1;
+            while(lo <= hi){
+                int mid = (lo+hi) >>> 1;
+                if(values[mid] < low)
+                    lo = mid+1;
+                else if(values[mid] > low)
+                    hi = mid-1;
+                else
+                    return mid;
+            }
+            return -(lo+1);
+        }
+    }
+
+    //One bit for every one of the 65536 values
+    private static class BitmapChunk extends Chunk{
+        private final long[] words;
+        private int cardinality;
+        public BitmapChunk(){
+            this(new long[WORDS], 0);
+        }
+        public BitmapChunk(long[] words, int cardinality){
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        public int cardinality(){return cardinality;}
+        public boolean contains(int low){return (words[low >>> 6] & (1L << low)) != 0;}
+        public Chunk add(int low){
+            set(low);
+            return this;
+        }
+        public int ceiling(int low){
+            int i = low >>> 6;
+            long word = words[i] & (-1L << low);
+            while(word == 0){
+                if(++i == WORDS)
+                    return -1;
+                word = words[i];
+            }
+            return (i << 6) + Long.numberOfTrailingZeros(word);
+        }
+        public int floor(int low){
+            int i = low >>> 6;
+            long word = words[i] & (-1L >>> (63 - (low & 63)));
+            while(word == 0){
+                if(--i < 0)
+                    return -1;
+                word = words[i];
+            }
+            return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+        }
+        public int first(){return ceiling(0);}
+        public int last(){return floor(0xFFFF);}
+        public int fill(int[] x, int pos, int high){
+            for(int i=0; i<WORDS; i++){
+                long word = words[i];
+                while(word != 0){
+                    x[pos++] = high | (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return pos;
+        }
+        public Chunk copy(){return new BitmapChunk(words.clone(), cardinality);}
+        public int sizeInBytes(){return 8 * WORDS;}
+        public Chunk expand(){return this;}
+        //A run starts at every set bit whose lower neighbour is clear, carried across words
+        public int runCount(){
+            int runs = 0;
+            long carry = 0;
+            for(int i=0; i<WORDS; i++){
+                long word = words[i];
+                runs += Long.bitCount(word & ~((word << 1) | carry));
+                carry = word >>> 63;
+            }
+            return runs;
+        }
+        public void set(int low){
+            long bit = 1L << low;
+            if((words[low >>> 6] & bit) == 0){
+                words[low >>> 6] |= bit;
+                cardinality++;
+            }
+        }
+        public void clear(int low){
+            long bit = 1L << low;
+            if((words[low >>> 6] & bit) != 0){
+                words[low >>> 6] &= ~bit;
+                cardinality--;
+            }
+        }
+        public ArrayChunk toArrayChunk(){
+            char[] values = new char[Math.max(cardinality, 1)];
+            int n = 0;
+            for(int i=0; i<WORDS; i++){
+                long word = words[i];
+                while(word != 0){
+                    values[n++] = (char)((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayChunk(values, n);
+        }
+    }
+
+    //Runs of consecutive values as (start, length-1) pairs, sorted by start
+    private static class RunChunk extends Chunk{
+        private final char[] runs;
+        private final int count;
+        private final int cardinality;
+        private RunChunk(char[] runs, int count, int cardinality){
+            this.runs = runs;
+            this.count = count;
+            this.cardinality = cardinality;
+        }
+        public static RunChunk of(Chunk chunk, int runCount){
+            char[] runs = new char[2 * runCount];
+            int r = 0;
+            int start = chunk.first(), end = start;
+            for(int v = chunk.ceiling(start+1); v >= 0; v = v < 0xFFFF ? chunk.ceiling(v+1) : -1){
+                if(v == end + 1){
+                    end = v;
+                    continue;
+                }
+                runs[r++] = (char)start;
+                runs[r++] = (char)(end - start);
+                start = end = v;
+            }
+            runs[r++] = (char)start;
+            runs[r] = (char)(end - start);
+            return new RunChunk(runs, runCount, chunk.cardinality());
+        }
+        public int cardinality(){return cardinality;}
+        public boolean contains(int low){
+            int i = runAtOrBefore(low);
+            return i >= 0 && low <= end(i);
+        }
+        public Chunk add(int low){return expand().add(low);}
+        public int ceiling(int low){
+            int i = runAtOrBefore(low);
+            if(i >= 0 && low <= end(i))
+                return low;
+            return i+1 < count ? runs[2*(i+1)] : -1;
+        }
+        public int floor(int low){
+            int i = runAtOrBefore(low);
+            if(i < 0)
+                return -1;
+            return Math.min(low, end(i));
+        }
+        public int first(){return runs[0];}
+        public int last(){return end(count-1);}
+        public int fill(int[] x, int pos, int high){
+            for(int i=0; i<count; i++)
+                for(int v=runs[2*i], end=end(i); v<=end; v++)
+                    x[pos++] = high | v;
+            return pos;
+        }
+        public Chunk copy(){return this;}
+        public int sizeInBytes(){return 2 * runs.length;}
+        public Chunk expand(){
+            if(cardinality <= ARRAY_MAX){
+                char[] values = new char[cardinality];
+                int n = 0;
+                for(int i=0; i<count; i++)
+                    for(int v=runs[2*i], end=end(i); v<=end; v++)
+                        values[n++] = (char)v;
+                return new ArrayChunk(values, n);
+            }
+            long[] words = new long[WORDS];
+            for(int i=0; i<count; i++)
+                setRange(words, runs[2*i], end(i));
+            return new BitmapChunk(words, cardinality);
+        }
+        public int runCount(){return count;}
+        private int end(int i){
+            return runs[2*i] + runs[2*i+1];
+        }
+        //Index of the last run starting at or before low; -1 if there is none
+        private int runAtOrBefore(int low){
+            int lo = 0, hi = count-1;
+            while(lo <= hi){
+                int mid = (lo+hi) >>> 1;
+                if(runs[2*mid] <= low)
+                    lo = mid+1;
+                else
+                    hi = mid-1;
+            }
+            return lo-1;
+        }
+        //Sets the bits from start to end included, a word at a time
+        private static void setRange(long[] words, int start, int end){
+            int first = start >>> 6, last = end >>> 6;
+            if(first == last){
+                words[first] |= (-1L << start) & (-1L >>> (63 - (end & 63)));
+                return;
+            }
+            words[first] |= -1L << start;
+            for(int i=first+1; i<last; i++)
+                words[i] = -1L;
+            words[last] |= -1L >>> (63 - (end & 63));
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package org.sample;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Container of distinct objects.
  */
@@ -27,7 +33,7 @@ public interface Set extends Container {
 /**
  * Inherits from Set all the properties. Objects are kept sorted.
  */
-interface SortedSet extends Set{
+interface SortedSet extends Set, Navigable{
     /**
      * Add an element to the set. Fail quietly if the set already contains the object.
      * @param obj The element to add.
@@ -83,6 +89,40 @@ class ArraySet implements Set{
         System.arraycopy(v, 0, x, 0, vSize);
         return x;
     }
+    /**
+     * Build a set with the given elements, dropping the duplicates.
+     * @throws IllegalArgumentException If the array or one of its elements are null.
+     */
+    //O(n)
+    public static ArraySet of(Object[] elements){
+        ArraySet x = new ArraySet();
+        x.addAll(elements);
+        return x;
+    }
+    /**
+     * Add all the given elements, dropping the duplicates. Each element costs a hash table lookup
+     * instead of a scan of the set, and the array is resized only once.
+     * @throws IllegalArgumentException If the array or one of its elements are null.
+     */
+    //O(n+m)
+    public void addAll(Object[] elements){
+        if(elements == null)
+            throw new IllegalArgumentException();
+        HashTable seen = new OpenHashTable(Math.max(2*(vSize + elements.length), 1));
+        for(int i=0; i<vSize; i++)
+            seen.insert(v[i], v[i]);
+        Object[] x = new Object[vSize + elements.length];
+        System.arraycopy(v, 0, x, 0, vSize);
+        int n = vSize;
+        for(int i=0; i<elements.length; i++){
+            if(seen.find(elements[i]) == null){
+                seen.insert(elements[i], elements[i]);
+                x[n++] = elements[i];
+            }
+        }
+        v = n == x.length && n > 0 ? x : Arrays.copyOf(x, Math.max(n, INITIAL_CAPACITY));
+        vSize = n;
+    }
     //O(n^2)
     public static Set union(Set s1, Set s2){
         Set x = new ArraySet();
@@ -90,7 +130,7 @@ class ArraySet implements Set{
         for(int i=0; i<v.length; i++)
             x.add(v[i]);
 
-        v = s1.toArray();
+        v = s2.toArray();
         for(int i=0; i<v.length; i++)
             x.add(v[i]);
         return x;
@@ -116,6 +156,210 @@ class ArraySet implements Set{
     }
 }
 
+/**
+ * Implementation using open addressing over an array of elements with linear probing.
+ * The array grows when it is half full, so add and contains cost O(1) expected.
+ * The static set operations accept any Set and run in O(n+m): elements are looked up in the operand
+ * that is already an OpenHashSet, or in a temporary one built from the smaller operand.
+ * Null elements are not allowed.
+ * @author Scala28
+ */
+class OpenHashSet implements Set{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private Object[] table;
+    private int count;
+    private int threshold;
+    private final HashStrategy strategy;
+
+    public OpenHashSet(){
+        this(INITIAL_CAPACITY);
+    }
+    /**
+     * @param dim Expected number of elements; the set does not grow until it holds them all.
+     * @throws IllegalArgumentException If dim is negative or too large.
+     */
+    public OpenHashSet(int dim){
+        this(dim, HashStrategy.MIX);
+    }
+    /**
+     * @param strategy The function used to hash the elements.
+     */
+    public OpenHashSet(int dim, HashStrategy strategy){
+        if(dim < 0 || dim > MAX_CAPACITY / 2 || strategy == null)
+            throw new IllegalArgumentException();
+        this.strategy = strategy;
+        allocate(tableSizeFor((int)Math.min((long)(dim / MAX_LOAD_FACTOR) + 1, MAX_CAPACITY)));
+    }
+    private OpenHashSet(OpenHashSet s){
+        strategy = s.strategy;
+        table = s.table.clone();
+        count = s.count;
+        threshold = s.threshold;
+    }
+    public void makeEmpty(){
+        Arrays.fill(table, null);
+        count = 0;
+    }
+    public boolean isEmpty(){return count == 0;}
+    public int size(){return count;}
+    //O(1) - amortized analysis
+    public void add(Object obj) throws IllegalArgumentException{
+        int index = indexOf(obj);
+        if(table[index] != null)
+            return;
+        table[index] = obj;
+        if(++count > threshold)
+            rehash();
+    }
+    //O(1)
+    public boolean contains(Object obj) throws IllegalArgumentException{
+        return table[indexOf(obj)] != null;
+    }
+    //O(n)
+    public Object[] toArray(){
+        Object[] x = new Object[count];
+        int n = 0;
+        for(int i=0; i<table.length; i++)
+            if(table[i] != null)
+                x[n++] = table[i];
+        return x;
+    }
+    /**
+     * Build a set with the given elements, dropping the duplicates.
+     * @throws IllegalArgumentException If the array or one of its elements are null.
+     */
+    //O(n)
+    public static OpenHashSet of(Object[] elements){
+        if(elements == null)
+            throw new IllegalArgumentException();
+        OpenHashSet x = new OpenHashSet(elements.length);
+        x.addAll(elements);
+        return x;
+    }
+    /**
+     * Add all the given elements, dropping the duplicates. The table is resized at most once.
+     * @throws IllegalArgumentException If the array or one of its elements are null.
+     */
+    //O(m) - amortized analysis
+    public void addAll(Object[] elements){
+        if(elements == null)
+            throw new IllegalArgumentException();
+        ensureCapacity(count + elements.length);
+        for(int i=0; i<elements.length; i++)
+            add(elements[i]);
+    }
+    //O(n+m): the greater operand is copied, then the elements of the smaller one are added
+    public static Set union(Set s1, Set s2){
+        if(s1 == null || s2 == null)
+            throw new IllegalArgumentException();
+        if(s1 instanceof OpenHashSet && (!(s2 instanceof OpenHashSet) || size(s1) >= size(s2))){
+            OpenHashSet x = new OpenHashSet((OpenHashSet)s1);
+            x.addAll(s2.toArray());
+            return x;
+        }
+        if(s2 instanceof OpenHashSet){
+            OpenHashSet x = new OpenHashSet((OpenHashSet)s2);
+            x.addAll(s1.toArray());
+            return x;
+        }
+        Object[] v1 = s1.toArray();
+        Object[] v2 = s2.toArray();
+        OpenHashSet x = new OpenHashSet(v1.length + v2.length);
+        x.addAll(v1.length >= v2.length ? v1 : v2);
+        x.addAll(v1.length >= v2.length ? v2 : v1);
+        return x;
+    }
+    //O(n+m), O(min(n, m)) if both operands are instances of OpenHashSet
+    public static Set intersection(Set s1, Set s2){
+        if(s1 == null || s2 == null)
+            throw new IllegalArgumentException();
+        Object[] scan;
+        Set lookup;
+        if(s1 instanceof OpenHashSet && s2 instanceof OpenHashSet){
+            //Iterate the smaller operand, look up in the greater one
+            boolean firstSmaller = size(s1) <= size(s2);
+            scan = (firstSmaller ? s1 : s2).toArray();
+            lookup = firstSmaller ? s2 : s1;
+        }else if(s1 instanceof OpenHashSet || s2 instanceof OpenHashSet){
+            scan = (s1 instanceof OpenHashSet ? s2 : s1).toArray();
+            lookup = s1 instanceof OpenHashSet ? s1 : s2;
+        }else{
+            //Hash the smaller operand, so that the temporary table is as small as possible
+            Object[] v1 = s1.toArray();
+            Object[] v2 = s2.toArray();
+            scan = v1.length >= v2.length ? v1 : v2;
+            lookup = of(v1.length >= v2.length ? v2 : v1);
+        }
+        OpenHashSet x = new OpenHashSet(Math.min(scan.length, size(lookup)));
+        for(int i=0; i<scan.length; i++)
+            if(lookup.contains(scan[i]))
+                x.add(scan[i]);
+        return x;
+    }
+    //O(n+m)
+    public static Set subtraction(Set s1, Set s2){
+        if(s1 == null || s2 == null)
+            throw new IllegalArgumentException();
+        Object[] v = s1.toArray();
+        Set lookup = s2 instanceof OpenHashSet ? s2 : of(s2.toArray());
+        OpenHashSet x = new OpenHashSet(v.length);
+        for(int i=0; i<v.length; i++)
+            if(!lookup.contains(v[i]))
+                x.add(v[i]);
+        return x;
+    }
+    //Number of elements of a set whose size is only known to OpenHashSet
+    private static int size(Set s){
+        return ((OpenHashSet)s).count;
+    }
+    //Slot holding the element, or the empty slot where it would be added
+    private int indexOf(Object obj){
+        if(obj == null)
+            throw new IllegalArgumentException();
+        int index = strategy.hash(obj) & (table.length-1);
+        while(table[index] != null && !table[index].equals(obj))
+            index = (index+1) & (table.length-1);
+        return index;
+    }
+    private void ensureCapacity(int dim){
+        if(dim > threshold && table.length < MAX_CAPACITY)
+            resize(tableSizeFor((int)Math.min((long)(dim / MAX_LOAD_FACTOR) + 1, MAX_CAPACITY)));
+    }
+    private void rehash(){
+        if(table.length == MAX_CAPACITY)
+            throw new IllegalStateException();
+        resize(table.length * 2);
+    }
+    private void resize(int length){
+        Object[] old = table;
+        allocate(length);
+        for(int i=0; i<old.length; i++){
+            if(old[i] == null)
+                continue;
+            int index = strategy.hash(old[i]) & (table.length-1);
+            while(table[index] != null)
+                index = (index+1) & (table.length-1);
+            table[index] = old[i];
+            count++;
+        }
+    }
+    private void allocate(int length){
+        table = new Object[length];
+        count = 0;
+        threshold = Math.min((int)(length * MAX_LOAD_FACTOR), length-1);
+    }
+    private static int tableSizeFor(int dim){
+        if(dim > MAX_CAPACITY)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while(n < dim)
+            n <<= 1;
+        return Math.max(n, 2);
+    }
+}
+
 /**
  * Implementation of SortedSet using simple array with dynamic dimension.
  * @author Scala28
@@ -159,6 +403,79 @@ class ArraySortedSet implements SortedSet{
         int pos = binarySearch(low, high, obj);
         return pos >= 0;
     }
+    //O(logn)
+    public Comparable floor(Comparable key){return keyAt(higherIndex(key)-1);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return keyAt(ceilingIndex(key));}
+    //O(logn)
+    public Comparable lower(Comparable key){return keyAt(ceilingIndex(key)-1);}
+    //O(logn)
+    public Comparable higher(Comparable key){return keyAt(higherIndex(key));}
+    //O(1)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptySetException();
+        return v[0];
+    }
+    //O(1)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptySetException();
+        return v[vSize-1];
+    }
+    //O(logn) to position the cursor, O(1) for every key
+    public Cursor range(Comparable from, Comparable to){
+        int start = from == null ? 0 : ceilingIndex(from);
+        int end = to == null ? vSize : ceilingIndex(to);
+        return new RangeCursor(start, end);
+    }
+    /**
+     * Build a set with the given elements, sorting them once and dropping the duplicates.
+     * @throws IllegalArgumentException If the array or one of its elements are null.
+     */
+    //O(nlogn)
+    public static ArraySortedSet of(Comparable[] elements){
+        ArraySortedSet x = new ArraySortedSet();
+        x.addAll(elements);
+        return x;
+    }
+    /**
+     * Add all the given elements: they are sorted once and merged with the set's ones,
+     * into an array sized exactly.
+     * @throws IllegalArgumentException If the array or one of its elements are null.
+     */
+    //O(n + mlogm)
+    @SuppressWarnings("unchecked")
+    public void addAll(Comparable[] elements){
+        if(elements == null)
+            throw new IllegalArgumentException();
+        Comparable[] sorted = elements.clone();
+        for(int i=0; i<sorted.length; i++)
+            if(sorted[i] == null)
+                throw new IllegalArgumentException();
+        Arrays.sort(sorted);
+        Comparable[] x = new Comparable[vSize + sorted.length];
+        int i = 0, j = 0, n = 0;
+        while(i < vSize || j < sorted.length){
+            Comparable next;
+            if(j == sorted.length || (i < vSize && v[i].compareTo(sorted[j]) <= 0))
+                next = v[i++];
+            else
+                next = sorted[j++];
+            //Both inputs are sorted, so a duplicate can only follow its twin
+            if(n == 0 || x[n-1].compareTo(next) != 0)
+                x[n++] = next;
+        }
+        v = n == x.length && n > 0 ? x : Arrays.copyOf(x, Math.max(n, INITIAL_CAPACITY));
+        vSize = n;
+    }
+    /**
+     * @return An immutable copy of the set, laid out for fast lookups.
+     */
+    //O(n)
+    public FrozenSortedSet freeze(){
+        return new FrozenSortedSet(toSortedArray());
+    }
     //O(n)
     public Comparable[] toSortedArray(){
         Comparable[] x = new Comparable[vSize];
@@ -168,9 +485,10 @@ class ArraySortedSet implements SortedSet{
     public Object[] toArray(){
         return toSortedArray();
     }
+    //Position of the key, or -(insertion point)-1 if it is not found
     private int binarySearch(int low, int high, Object target){
         if(low > high)
-            return -1;
+            return -(low+1);
         int mid = low +(high-low)/2;
         if(v[mid].compareTo(target) == 0)
             return mid;
@@ -179,64 +497,365 @@ class ArraySortedSet implements SortedSet{
         else
             return binarySearch(mid+1, high, target);
     }
-    //O(nlogn)
+    //O(n+m)
     public static SortedSet union(SortedSet s1, SortedSet s2){
-        SortedSet x = new ArraySortedSet();
-        Comparable[] v1 = s1.toSortedArray();
-        Comparable[] v2 = s2.toSortedArray();
-        int i=0, j=0;
-        while(i<v1.length && j<v2.length){
-            if(v1[i].compareTo(v2[j]) < 0)
-                x.add(v1[i++]);
-            else if(v1[i].compareTo(v2[j]) > 0)
-                x.add(v2[j++]);
-            else{
-                x.add(v1[i++]);
-                j++;
-            }
-        }
-        while(i < v1.length)
-            x.add(v1[i++]);
-        while(j < v2.length)
-            x.add(v2[j++]);
-        return x;
-
+        Comparable[] v1 = sortedElements(s1);
+        Comparable[] v2 = sortedElements(s2);
+        Comparable[] x = new Comparable[v1.length + v2.length];
+        return wrap(x, merge(UNION, v1, 0, v1.length, v2, 0, v2.length, x, 0));
     }
-    //O(nlogn)
+    //O(n+m), O(mlog(n/m)) comparisons when one set is much smaller than the other
     public static SortedSet intersection(SortedSet s1, SortedSet s2){
-        SortedSet x = new ArraySortedSet();
-        Comparable[] v1 = s1.toSortedArray();
-        Comparable[] v2 = s2.toSortedArray();
+        Comparable[] v1 = sortedElements(s1);
+        Comparable[] v2 = sortedElements(s2);
+        Comparable[] x = new Comparable[Math.min(v1.length, v2.length)];
+        return wrap(x, merge(INTERSECTION, v1, 0, v1.length, v2, 0, v2.length, x, 0));
+    }
+    //O(n+m), O(mlog(n/m)) comparisons when one set is much smaller than the other
+    public static SortedSet subtraction(SortedSet s1, SortedSet s2){
+        Comparable[] v1 = sortedElements(s1);
+        Comparable[] v2 = sortedElements(s2);
+        Comparable[] x = new Comparable[v1.length];
+        return wrap(x, merge(SUBTRACTION, v1, 0, v1.length, v2, 0, v2.length, x, 0));
+    }
+    /**
+     * Intersection of any number of sets, starting from the smallest one: every step intersects
+     * the elements left with the next set by size, and stops as soon as none is left.
+     * @throws IllegalArgumentException If no set is given or one of them is null.
+     */
+    //O(klog(k) + m*k*log(n/m)) comparisons with m the size of the smallest set and n the size of the largest
+    public static SortedSet intersectAll(SortedSet... sets){
+        if(sets == null || sets.length == 0)
+            throw new IllegalArgumentException();
+        Comparable[][] v = new Comparable[sets.length][];
+        for(int k=0; k<sets.length; k++){
+            if(sets[k] == null)
+                throw new IllegalArgumentException();
+            v[k] = sortedElements(sets[k]);
+        }
+        Arrays.sort(v, new Comparator<Comparable[]>(){
+            public int compare(Comparable[] a, Comparable[] b){return Integer.compare(a.length, b.length);}
+        });
+        //The elements left are kept at the head of a copy of the smallest set, which is only read ahead of the writes
+        Comparable[] x = v[0].clone();
+        int size = x.length;
+        for(int k=1; k<v.length && size > 0; k++)
+            size = merge(INTERSECTION, x, 0, size, v[k], 0, v[k].length, x, 0);
+        return wrap(x, size);
+    }
+    /**
+     * Union merging slices of the two sets in parallel on the given pool.
+     * The merged sequence is cut into slices of equal length by co-ranking, one binary search per cut,
+     * so the slices are balanced whatever the distribution of the elements.
+     * @throws IllegalArgumentException If the pool is null.
+     */
+    //O((n+m)/p + plog(n+m)) with p the parallelism of the pool
+    public static SortedSet union(SortedSet s1, SortedSet s2, ForkJoinPool pool){
+        return parallelMerge(UNION, s1, s2, pool);
+    }
+    /**
+     * Intersection merging slices of the two sets in parallel on the given pool.
+     * @throws IllegalArgumentException If the pool is null.
+     */
+    //O((n+m)/p + plog(n+m)) with p the parallelism of the pool
+    public static SortedSet intersection(SortedSet s1, SortedSet s2, ForkJoinPool pool){
+        return parallelMerge(INTERSECTION, s1, s2, pool);
+    }
+    /**
+     * Subtraction merging slices of the two sets in parallel on the given pool.
+     * @throws IllegalArgumentException If the pool is null.
+     */
+    //O((n+m)/p + plog(n+m)) with p the parallelism of the pool
+    public static SortedSet subtraction(SortedSet s1, SortedSet s2, ForkJoinPool pool){
+        return parallelMerge(SUBTRACTION, s1, s2, pool);
+    }
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int SUBTRACTION = 2;
+    //Below this length a slice is not worth a task
+    private static final int MIN_SLICE = 1 << 13;
+    //Slices per thread, so that a slow thread can be helped by the others
+    private static final int SLICES_PER_THREAD = 4;
+    //Above this ratio between the sizes of the operands, intersection and subtraction gallop through the larger one
+    private static final int GALLOP_RATIO = 16;
 
-        for(int i=0, j=0; i<v1.length; i++){
-            while(j< v2.length && v1[i].compareTo(v2[j]) > 0)
+    //Set of the first size elements of x, trimmed so that sortedElements does not copy them again
+    private static ArraySortedSet wrap(Comparable[] x, int size){
+        ArraySortedSet s = new ArraySortedSet();
+        if(size > 0){
+            s.v = size == x.length ? x : Arrays.copyOf(x, size);
+            s.vSize = size;
+        }
+        return s;
+    }
+    //The elements of the set in ascending order, to be read only: an ArraySortedSet sized exactly lends its own array
+    private static Comparable[] sortedElements(SortedSet s){
+        if(s instanceof ArraySortedSet){
+            ArraySortedSet x = (ArraySortedSet)s;
+            if(x.vSize == x.v.length)
+                return x.v;
+        }
+        return s.toSortedArray();
+    }
+    private static SortedSet parallelMerge(int operation, SortedSet s1, SortedSet s2, ForkJoinPool pool){
+        if(pool == null)
+            throw new IllegalArgumentException();
+        final Comparable[] v1 = sortedElements(s1);
+        final Comparable[] v2 = sortedElements(s2);
+        int total = v1.length + v2.length;
+        int slices = (int)Math.max(1, Math.min((long)pool.getParallelism() * SLICES_PER_THREAD, total / MIN_SLICE));
+        //Cut k starts at v1[cut1[k]] and v2[cut2[k]]
+        int[] cut1 = new int[slices+1];
+        int[] cut2 = new int[slices+1];
+        for(int k=1; k<slices; k++){
+            int d = (int)((long)total * k / slices);
+            int i = coRank(d, v1, v2);
+            int j = d - i;
+            //An element of v1 and its twin in v2 must fall in the same slice to be merged
+            if(i > 0 && j < v2.length && v1[i-1].compareTo(v2[j]) == 0)
                 j++;
-            if(j == v2.length)
-                break;
-            if(v1[i].compareTo(v2[j])==0){
-                x.add(v1[i]);
+            cut1[k] = i;
+            cut2[k] = j;
+        }
+        cut1[slices] = v1.length;
+        cut2[slices] = v2.length;
+        //Every slice writes at the offset it would have without duplicates, then the gaps are closed
+        final Comparable[] x = new Comparable[operation == UNION ? total :
+                operation == INTERSECTION ? Math.min(v1.length, v2.length) : v1.length];
+        final int[] offsets = new int[slices];
+        for(int k=0; k<slices; k++)
+            offsets[k] = operation == UNION ? cut1[k] + cut2[k] :
+                    operation == INTERSECTION ? Math.min(cut1[k], cut2[k]) : cut1[k];
+        final MergeTask[] tasks = new MergeTask[slices];
+        for(int k=0; k<slices; k++)
+            tasks[k] = new MergeTask(operation, v1, cut1[k], cut1[k+1], v2, cut2[k], cut2[k+1], x, offsets[k]);
+        if(slices == 1)
+            tasks[0].compute();
+        else
+            pool.invoke(new RecursiveAction(){
+                protected void compute(){invokeAll(tasks);}
+            });
+        int size = tasks[0].end;
+        for(int k=1; k<slices; k++){
+            int length = tasks[k].end - offsets[k];
+            System.arraycopy(x, offsets[k], x, size, length);
+            size += length;
+        }
+        return wrap(x, size);
+    }
+    //Number of elements taken from v1 by the first d of the merge of v1 and v2, v1 first on ties
+    private static int coRank(int d, Comparable[] v1, Comparable[] v2){
+        int low = Math.max(0, d - v2.length);
+        int high = Math.min(d, v1.length);
+        while(low < high){
+            int i = (low + high) >>> 1;
+            if(v1[i].compareTo(v2[d-i-1]) <= 0)
+                low = i+1;
+            else
+                high = i;
+        }
+        return low;
+    }
+    //Merge v1[i, iEnd) with v2[j, jEnd) into x from pos, returning the position after the last written element
+    @SuppressWarnings("unchecked")
+    private static int merge(int operation, Comparable[] v1, int i, int iEnd, Comparable[] v2, int j, int jEnd,
+                             Comparable[] x, int pos){
+        long n1 = iEnd - i, n2 = jEnd - j;
+        if(operation != UNION && (n1 * GALLOP_RATIO < n2 || n2 * GALLOP_RATIO < n1))
+            return gallop(operation, v1, i, iEnd, v2, j, jEnd, x, pos);
+        while(i < iEnd && j < jEnd){
+            int c = v1[i].compareTo(v2[j]);
+            if(c < 0){
+                if(operation != INTERSECTION)
+                    x[pos++] = v1[i];
+                i++;
+            }
+            else if(c > 0){
+                if(operation == UNION)
+                    x[pos++] = v2[j];
+                j++;
+            }
+            else{
+                if(operation != SUBTRACTION)
+                    x[pos++] = v1[i];
+                i++;
                 j++;
             }
         }
-        return x;
+        if(operation != INTERSECTION){
+            System.arraycopy(v1, i, x, pos, iEnd - i);
+            pos += iEnd - i;
+        }
+        if(operation == UNION){
+            System.arraycopy(v2, j, x, pos, jEnd - j);
+            pos += jEnd - j;
+        }
+        return pos;
     }
-    //O(nlogn)
-    public static SortedSet subtraction(SortedSet s1, SortedSet s2){
-        SortedSet x = new ArraySortedSet();
-        Comparable[] v1 = s1.toSortedArray();
-        Comparable[] v2 = s2.toSortedArray();
-
-        int i, j;
-        for(i=0, j=0; i<v1.length; i++){
-            while(j<v2.length && v1[i].compareTo(v2[j])>0)
-                j++;
-            if(j == v2.length)
-                break;
-            if(v1[i].compareTo(v2[j]) != 0)
-                x.add(v1[i]);
+    //merge of an intersection or a subtraction, searching every element of the smaller operand in the larger one
+    @SuppressWarnings("unchecked")
+    private static int gallop(int operation, Comparable[] v1, int i, int iEnd, Comparable[] v2, int j, int jEnd,
+                              Comparable[] x, int pos){
+        if(iEnd - i <= jEnd - j){
+            for(; i<iEnd; i++){
+                j = gallopingSearch(v2, j, jEnd, v1[i]);
+                boolean found = j < jEnd && v1[i].compareTo(v2[j]) == 0;
+                if(found == (operation == INTERSECTION))
+                    x[pos++] = v1[i];
+            }
+            return pos;
+        }
+        for(; j<jEnd && i<iEnd; j++){
+            int k = gallopingSearch(v1, i, iEnd, v2[j]);
+            //The elements skipped are missing from v2
+            if(operation == SUBTRACTION){
+                System.arraycopy(v1, i, x, pos, k - i);
+                pos += k - i;
+            }
+            i = k;
+            if(i < iEnd && v1[i].compareTo(v2[j]) == 0){
+                if(operation == INTERSECTION)
+                    x[pos++] = v1[i];
+                i++;
+            }
+        }
+        if(operation == SUBTRACTION){
+            System.arraycopy(v1, i, x, pos, iEnd - i);
+            pos += iEnd - i;
+        }
+        return pos;
+    }
+    //Index of the first element of v[from, to) greater than or equal to the key, doubling the step from from
+    //before a binary search: O(log(d)) with d the distance from from
+    @SuppressWarnings("unchecked")
+    private static int gallopingSearch(Comparable[] v, int from, int to, Comparable key){
+        int low = from, step = 1;
+        int high = from;
+        while(high < to && v[high].compareTo(key) < 0){
+            low = high + 1;
+            high = (int)Math.min(to, (long)from + step);
+            step <<= 1;
+        }
+        //v[low-1] < key, and v[high] >= key if high < to
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(v[mid].compareTo(key) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+    //Merges one slice of a parallel set operation
+    private static class MergeTask extends RecursiveAction{
+        private final int operation;
+        private final Comparable[] v1, v2, x;
+        private final int i, iEnd, j, jEnd, pos;
+        //Position after the last element written, once computed
+        private int end;
+        public MergeTask(int operation, Comparable[] v1, int i, int iEnd, Comparable[] v2, int j, int jEnd,
+                         Comparable[] x, int pos){
+            this.operation = operation;
+            this.v1 = v1;
+            this.i = i;
+            this.iEnd = iEnd;
+            this.v2 = v2;
+            this.j = j;
+            this.jEnd = jEnd;
+            this.x = x;
+            this.pos = pos;
+        }
+        protected void compute(){end = merge(operation, v1, i, iEnd, v2, j, jEnd, x, pos);}
+    }
+    //Index of the first key greater than or equal to the given one
+    private int ceilingIndex(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int pos = binarySearch(0, vSize-1, key);
+        return pos >= 0 ? pos : -pos-1;
+    }
+    //Index of the first key strictly greater than the given one
+    private int higherIndex(Comparable key){
+        if(key == null)
+            throw new IllegalArgumentException();
+        int pos = binarySearch(0, vSize-1, key);
+        return pos >= 0 ? pos+1 : -pos-1;
+    }
+    private Comparable keyAt(int i){
+        return i >= 0 && i < vSize ? v[i] : null;
+    }
+    private class RangeCursor implements Cursor{
+        private int next;
+        private int current = -1;
+        private final int end;
+        public RangeCursor(int start, int end){
+            next = start;
+            this.end = end;
+        }
+        public boolean hasNext(){return next < end;}
+        public Comparable next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            current = next++;
+            return v[current];
+        }
+        public Object getValue(){
+            if(current < 0)
+                throw new IllegalStateException();
+            return v[current];
         }
-        while(i < v1.length)
-            x.add(v1[i++]);
-        return x;
     }
 }
+
+/**
+ * Immutable implementation of SortedSet using an EytzingerIndex, built by ArraySortedSet.freeze().
+ * contains costs one comparison per level and, for Integer or Long elements, no pointer chasing.
+ * add and makeEmpty throw UnsupportedOperationException.
+ * @author Scala28
+ */
+class FrozenSortedSet implements SortedSet{
+    private final EytzingerIndex index;
+    /**
+     * @param sorted Distinct elements in ascending order.
+     */
+    FrozenSortedSet(Comparable[] sorted){
+        index = new EytzingerIndex(sorted, null, sorted.length);
+    }
+    public void makeEmpty(){throw new UnsupportedOperationException();}
+    public boolean isEmpty(){return index.size() == 0;}
+    public void add(Object obj){throw new UnsupportedOperationException();}
+    public void add(Comparable obj){throw new UnsupportedOperationException();}
+    //O(logn)
+    public boolean contains(Object obj){
+        if(obj == null)
+            throw new IllegalArgumentException();
+        return obj instanceof Comparable && index.find((Comparable)obj) != 0;
+    }
+    //O(logn)
+    public Comparable floor(Comparable key){return index.floor(key);}
+    //O(logn)
+    public Comparable ceiling(Comparable key){return index.ceiling(key);}
+    //O(logn)
+    public Comparable lower(Comparable key){return index.lower(key);}
+    //O(logn)
+    public Comparable higher(Comparable key){return index.higher(key);}
+    //O(logn)
+    public Comparable first(){
+        if(isEmpty())
+            throw new EmptySetException();
+        return index.keyAt(index.first());
+    }
+    //O(logn)
+    public Comparable last(){
+        if(isEmpty())
+            throw new EmptySetException();
+        return index.keyAt(index.last());
+    }
+    //O(logn) to position the cursor, O(1) - amortized analysis for every element
+    public Cursor range(Comparable from, Comparable to){
+        return index.range(from, to);
+    }
+    //O(n)
+    public Comparable[] toSortedArray(){return index.sortedKeys();}
+    public Object[] toArray(){return toSortedArray();}
+}
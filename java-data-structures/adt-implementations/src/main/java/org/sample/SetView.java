@@ -0,0 +1,178 @@
+package org.sample;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only set computed on demand from other sets, without building the result.
+ * contains asks the operands, and elements streams the result one element at a time: the operands
+ * are read through toArray, views through their own elements. Views are sets themselves, so they
+ * compose: intersectionView(unionView(a, b), c) streams the elements of a or b also in c in one pass
+ * over a and b, with no intermediate set.
+ * The cost of a view is the cost of the lookups it makes in its operands: use operands with a fast
+ * contains, such as OpenHashSet, where a view looks elements up. The operands must not be modified
+ * while the elements of a view are being iterated.
+ * add and makeEmpty throw UnsupportedOperationException.
+ * @author Scala28
+ */
+abstract class SetView implements Set{
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * @return An iterator over the elements of the view, each returned once, in no particular order.
+     */
+    public abstract Iterator<Object> elements();
+    /**
+     * @throws IllegalArgumentException If obj is null.
+     */
+    public abstract boolean contains(Object obj);
+
+    public void makeEmpty(){throw new UnsupportedOperationException();}
+    public void add(Object obj){throw new UnsupportedOperationException();}
+    //Stops at the first element found, after copying the first operand through toArray if it is not a view
+    public boolean isEmpty(){
+        return !elements().hasNext();
+    }
+    //O(n) plus the lookups in the operands
+    public Object[] toArray(){
+        Object[] x = new Object[INITIAL_CAPACITY];
+        int n = 0;
+        for(Iterator<Object> it = elements(); it.hasNext(); ){
+            if(n == x.length)
+                x = ArrayUtil.resize(x, x.length*2);
+            x[n++] = it.next();
+        }
+        return Arrays.copyOf(x, n);
+    }
+    /**
+     * @return The elements of s1 followed by the elements of s2 not in s1: every element of s2 is looked up in s1.
+     * @throws IllegalArgumentException If one of the sets is null.
+     */
+    //O(1)
+    public static SetView unionView(final Set s1, final Set s2){
+        if(s1 == null || s2 == null)
+            throw new IllegalArgumentException();
+        return new SetView(){
+            public boolean contains(Object obj){
+                if(obj == null)
+                    throw new IllegalArgumentException();
+                return s1.contains(obj) || s2.contains(obj);
+            }
+            public boolean isEmpty(){
+                return s1.isEmpty() && s2.isEmpty();
+            }
+            public Iterator<Object> elements(){
+                return new Concatenation(elementsOf(s1), new Filter(elementsOf(s2), s1, false));
+            }
+        };
+    }
+    /**
+     * @return The elements of s1 found in s2: every element of s1 is looked up in s2, so s1 should be the smaller.
+     * @throws IllegalArgumentException If one of the sets is null.
+     */
+    //O(1)
+    public static SetView intersectionView(final Set s1, final Set s2){
+        if(s1 == null || s2 == null)
+            throw new IllegalArgumentException();
+        return new SetView(){
+            public boolean contains(Object obj){
+                if(obj == null)
+                    throw new IllegalArgumentException();
+                return s1.contains(obj) && s2.contains(obj);
+            }
+            //Without streaming if an operand is empty
+            public boolean isEmpty(){
+                return s1.isEmpty() || s2.isEmpty() || super.isEmpty();
+            }
+            public Iterator<Object> elements(){
+                return new Filter(elementsOf(s1), s2, true);
+            }
+        };
+    }
+    /**
+     * @return The elements of s1 not found in s2: every element of s1 is looked up in s2.
+     * @throws IllegalArgumentException If one of the sets is null.
+     */
+    //O(1)
+    public static SetView differenceView(final Set s1, final Set s2){
+        if(s1 == null || s2 == null)
+            throw new IllegalArgumentException();
+        return new SetView(){
+            public boolean contains(Object obj){
+                if(obj == null)
+                    throw new IllegalArgumentException();
+                return s1.contains(obj) && !s2.contains(obj);
+            }
+            //Without streaming if an operand is empty
+            public boolean isEmpty(){
+                return s1.isEmpty() || (!s2.isEmpty() && super.isEmpty());
+            }
+            public Iterator<Object> elements(){
+                return new Filter(elementsOf(s1), s2, false);
+            }
+        };
+    }
+    //Views are streamed, other sets read through the copy made by toArray
+    private static Iterator<Object> elementsOf(Set s){
+        if(s instanceof SetView)
+            return ((SetView)s).elements();
+        return new ArrayIterator(s.toArray());
+    }
+    private static class ArrayIterator implements Iterator<Object>{
+        private final Object[] v;
+        private int next;
+        public ArrayIterator(Object[] v){this.v = v;}
+        public boolean hasNext(){return next < v.length;}
+        public Object next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            return v[next++];
+        }
+        public void remove(){throw new UnsupportedOperationException();}
+    }
+    //The elements of the source contained, or not contained, in the filter set
+    private static class Filter implements Iterator<Object>{
+        private final Iterator<Object> source;
+        private final Set filter;
+        private final boolean contained;
+        //Element found ahead by hasNext; null if none yet
+        private Object next;
+        public Filter(Iterator<Object> source, Set filter, boolean contained){
+            this.source = source;
+            this.filter = filter;
+            this.contained = contained;
+        }
+        public boolean hasNext(){
+            while(next == null && source.hasNext()){
+                Object obj = source.next();
+                if(filter.contains(obj) == contained)
+                    next = obj;
+            }
+            return next != null;
+        }
+        public Object next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            Object obj = next;
+            next = null;
+            return obj;
+        }
+        public void remove(){throw new UnsupportedOperationException();}
+    }
+    //The elements of the first iterator, then those of the second
+    private static class Concatenation implements Iterator<Object>{
+        private final Iterator<Object> first, second;
+        public Concatenation(Iterator<Object> first, Iterator<Object> second){
+            this.first = first;
+            this.second = second;
+        }
+        public boolean hasNext(){return first.hasNext() || second.hasNext();}
+        public Object next(){
+            if(first.hasNext())
+                return first.next();
+            return second.next();
+        }
+        public void remove(){throw new UnsupportedOperationException();}
+    }
+}
@@ -75,4 +75,290 @@ class ArrayTable implements Table{
     public float loadFactor(){
         return (count + 0.0f)/v.length;
     }
+    /**
+     * @return Approximate bytes used by the table, assuming 8 byte references.
+     */
+    public long memoryFootprint(){
+        return 16 + 8L*v.length;
+    }
+}
+
+/**
+ * Implementation using a two-level array: the key range is split in fixed-size pages that are
+ * allocated on first write and released as soon as they become empty.
+ * Suited to huge key ranges with few occupied keys.
+ * @author Scala28
+ */
+class PagedTable implements Table{
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+    private Object[][] pages;
+    private int[] pageCounts;
+    private final int dim;
+    private final int pageShift;
+    private final int pageMask;
+    private int count;
+    private int allocatedPages;
+
+    public PagedTable(int dim){
+        this(dim, DEFAULT_PAGE_SIZE);
+    }
+    /**
+     * @param dim The dimension of the key range, up to Integer.MAX_VALUE.
+     * @param pageSize The number of keys in a page; must be a power of two.
+     */
+    public PagedTable(int dim, int pageSize){
+        if(dim <= 0 || pageSize <= 0 || (pageSize & (pageSize-1)) != 0)
+            throw new IllegalArgumentException();
+        this.dim = dim;
+        pageShift = Integer.numberOfTrailingZeros(pageSize);
+        pageMask = pageSize-1;
+        int n = (int)(((long)dim + pageSize - 1) >>> pageShift);
+        pages = new Object[n][];
+        pageCounts = new int[n];
+        makeEmpty();
+    }
+    //O(range/pageSize)
+    public void makeEmpty(){
+        count = 0;
+        allocatedPages = 0;
+        for(int i=0; i<pages.length; i++){
+            pages[i] = null;
+            pageCounts[i] = 0;
+        }
+    }
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    private void checkKey(int key) throws InvalidKeyTableException{
+        if(key < 0 || key >= dim)
+            throw new InvalidKeyTableException();
+    }
+    //O(1)
+    public void insert(int key, Object value) throws InvalidKeyTableException{
+        checkKey(key);
+        if(value == null){
+            remove(key);
+            return;
+        }
+        int p = key >>> pageShift;
+        Object[] page = pages[p];
+        if(page == null){
+            page = new Object[pageMask+1];
+            pages[p] = page;
+            allocatedPages++;
+        }
+        if(page[key & pageMask] == null){
+            count++;
+            pageCounts[p]++;
+        }
+        page[key & pageMask] = value;
+    }
+    //O(1)
+    public void remove(int key) throws InvalidKeyTableException{
+        checkKey(key);
+        int p = key >>> pageShift;
+        Object[] page = pages[p];
+        if(page == null || page[key & pageMask] == null)
+            return;
+        page[key & pageMask] = null;
+        count--;
+        if(--pageCounts[p] == 0){
+            pages[p] = null;
+            allocatedPages--;
+        }
+    }
+    //O(1)
+    public Object find(int key) throws InvalidKeyTableException{
+        checkKey(key);
+        Object[] page = pages[key >>> pageShift];
+        return page != null ? page[key & pageMask] : null;
+    }
+    public float loadFactor(){
+        return (count + 0.0f)/dim;
+    }
+    /**
+     * @return Approximate bytes used by the table, assuming 8 byte references.
+     */
+    public long memoryFootprint(){
+        long directory = 16 + 8L*pages.length + 16 + 4L*pageCounts.length;
+        return directory + allocatedPages * (16 + 8L*(pageMask+1));
+    }
+}
+
+/**
+ * Base of the tables keeping a bitmap of the occupied keys next to primitive value storage.
+ * The bitmap answers occupancy and navigation queries one 64 bit word at a time, so that
+ * scanning the occupied keys touches 64 keys per memory access.
+ * @author Scala28
+ */
+abstract class BitmapTable implements Table{
+    protected final long[] bitmap;
+    protected final int dim;
+    protected int count;
+
+    protected BitmapTable(int dim){
+        if(dim <= 0)
+            throw new IllegalArgumentException();
+        this.dim = dim;
+        bitmap = new long[(int)(((long)dim + 63) >>> 6)];
+        makeEmpty();
+    }
+    //O(range/64)
+    public void makeEmpty(){
+        count = 0;
+        for(int i=0; i<bitmap.length; i++)
+            bitmap[i] = 0;
+    }
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    protected void checkKey(int key) throws InvalidKeyTableException{
+        if(key < 0 || key >= dim)
+            throw new InvalidKeyTableException();
+    }
+    public boolean contains(int key) throws InvalidKeyTableException{
+        checkKey(key);
+        return (bitmap[key >>> 6] & (1L << key)) != 0;
+    }
+    public void remove(int key) throws InvalidKeyTableException{
+        checkKey(key);
+        if((bitmap[key >>> 6] & (1L << key)) != 0){
+            bitmap[key >>> 6] &= ~(1L << key);
+            count--;
+        }
+    }
+    //Marks the key as occupied, returns true if it was free
+    protected boolean occupy(int key){
+        long word = bitmap[key >>> 6];
+        bitmap[key >>> 6] = word | (1L << key);
+        if((word & (1L << key)) == 0){
+            count++;
+            return true;
+        }
+        return false;
+    }
+    /**
+     * @return The smallest occupied key greater than or equal to from; -1 if there is none.
+     */
+    public int nextOccupied(int from){
+        if(from < 0)
+            from = 0;
+        if(from >= dim)
+            return -1;
+        int i = from >>> 6;
+        long word = bitmap[i] & (-1L << from);
+        while(word == 0){
+            if(++i == bitmap.length)
+                return -1;
+            word = bitmap[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+    /**
+     * @return The greatest occupied key less than or equal to from; -1 if there is none.
+     */
+    public int prevOccupied(int from){
+        if(from < 0)
+            return -1;
+        if(from >= dim)
+            from = dim-1;
+        int i = from >>> 6;
+        long word = bitmap[i] & (-1L >>> (63 - (from & 63)));
+        while(word == 0){
+            if(--i < 0)
+                return -1;
+            word = bitmap[i];
+        }
+        return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+    /**
+     * @return All the occupied keys, in ascending order.
+     */
+    public int[] occupiedKeys(){
+        int[] keys = new int[count];
+        int j = 0;
+        for(int i=0; i<bitmap.length; i++){
+            long word = bitmap[i];
+            while(word != 0){
+                keys[j++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word-1;
+            }
+        }
+        return keys;
+    }
+    public float loadFactor(){
+        return (count + 0.0f)/dim;
+    }
+}
+
+/**
+ * Implementation storing int values in a primitive array, indexed by an occupancy bitmap.
+ * Only Integer values are accepted by insert; get and put avoid boxing.
+ * @author Scala28
+ */
+class IntBitmapTable extends BitmapTable{
+    private final int[] v;
+
+    public IntBitmapTable(int dim){
+        super(dim);
+        v = new int[dim];
+    }
+    //O(1)
+    public void insert(int key, Object value) throws InvalidKeyTableException, InvalidTypeException{
+        if(!(value instanceof Integer))
+            throw new InvalidTypeException();
+        put(key, (Integer)value);
+    }
+    //O(1)
+    public Object find(int key) throws InvalidKeyTableException{
+        return contains(key) ? (Object)v[key] : null;
+    }
+    //O(1)
+    public void put(int key, int value) throws InvalidKeyTableException{
+        checkKey(key);
+        occupy(key);
+        v[key] = value;
+    }
+    /**
+     * @return The value associated to the given key; 0 if the key is not occupied.
+     */
+    public int get(int key) throws InvalidKeyTableException{
+        return contains(key) ? v[key] : 0;
+    }
+}
+
+/**
+ * Implementation storing long values in a primitive array, indexed by an occupancy bitmap.
+ * Only Long values are accepted by insert; get and put avoid boxing.
+ * @author Scala28
+ */
+class LongBitmapTable extends BitmapTable{
+    private final long[] v;
+
+    public LongBitmapTable(int dim){
+        super(dim);
+        v = new long[dim];
+    }
+    //O(1)
+    public void insert(int key, Object value) throws InvalidKeyTableException, InvalidTypeException{
+        if(!(value instanceof Long))
+            throw new InvalidTypeException();
+        put(key, (Long)value);
+    }
+    //O(1)
+    public Object find(int key) throws InvalidKeyTableException{
+        return contains(key) ? (Object)v[key] : null;
+    }
+    //O(1)
+    public void put(int key, long value) throws InvalidKeyTableException{
+        checkKey(key);
+        occupy(key);
+        v[key] = value;
+    }
+    /**
+     * @return The value associated to the given key; 0 if the key is not occupied.
+     */
+    public long get(int key) throws InvalidKeyTableException{
+        return contains(key) ? v[key] : 0;
+    }
 }
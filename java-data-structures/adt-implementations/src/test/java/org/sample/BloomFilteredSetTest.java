@@ -0,0 +1,36 @@
+package org.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * BloomFilteredSet must add to a wrapped SortedSet through add(Comparable).
+ */
+public class BloomFilteredSetTest {
+    @Test
+    public void addToSortedSet(){
+        BloomFilteredSet set = new BloomFilteredSet(new ArraySortedSet(), 0.01);
+        //Enough elements to rebuild the filter a few times
+        for(int i=0; i<1000; i += 2)
+            set.add(i);
+        set.add(0);
+        for(int i=0; i<1000; i++)
+            assertEquals(i % 2 == 0, set.contains(i));
+        assertEquals(500, set.toArray().length);
+    }
+    @Test(expected = IllegalArgumentException.class)
+    public void addNotComparableToSortedSet(){
+        new BloomFilteredSet(new ArraySortedSet(), 0.01).add(new Object());
+    }
+    @Test
+    public void addToSet(){
+        BloomFilteredSet set = new BloomFilteredSet(new ArraySet(), 0.01);
+        Object element = new Object();
+        set.add(element);
+        assertTrue(set.contains(element));
+        assertFalse(set.contains(new Object()));
+    }
+}
@@ -0,0 +1,61 @@
+package org.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Distinct keys sharing a hashCode must still be told apart by PerfectHashMap.
+ */
+public class PerfectHashMapTest {
+    @Test
+    public void stringsWithEqualHashCode(){
+        PerfectHashMap map = PerfectHashMap.fromEntries(new Object[]{"Aa", "BB"}, new Object[]{1, 2});
+        assertEquals(1, map.get("Aa"));
+        assertEquals(2, map.get("BB"));
+        assertNull(map.get("C#"));
+    }
+    @Test
+    public void manyRandomStrings(){
+        //Around 10^5 keys, 32 bit hashes collide with high probability
+        int n = 200000;
+        Random random = new Random(42);
+        java.util.Set<String> distinct = new java.util.HashSet<String>();
+        while(distinct.size() < n)
+            distinct.add(Long.toHexString(random.nextLong()));
+        Object[] keys = distinct.toArray();
+        Object[] values = new Object[n];
+        for(int i=0; i<n; i++)
+            values[i] = i;
+        PerfectHashMap map = PerfectHashMap.fromEntries(keys, values);
+        for(int i=0; i<n; i++)
+            assertEquals(i, map.get(keys[i]));
+        assertNull(map.get("not a hex string"));
+    }
+    @Test
+    public void keysWithEqualHashCode(){
+        int n = 1000;
+        Object[] keys = new Object[n];
+        Object[] values = new Object[n];
+        for(int i=0; i<n; i++){
+            //A tenth of the keys share a single hashCode, and fall back to equals
+            keys[i] = i % 10 == 0 ? new SameHash(i) : Integer.valueOf(i);
+            values[i] = i;
+        }
+        PerfectHashMap map = PerfectHashMap.copyOf(PerfectHashMap.fromEntries(keys, values));
+        for(int i=0; i<n; i++)
+            assertEquals(i, map.get(keys[i]));
+        assertNull(map.get(new SameHash(-1)));
+        assertNull(map.get(n));
+    }
+
+    private static class SameHash{
+        private final int id;
+        SameHash(int id){this.id = id;}
+        public int hashCode(){return 7;}
+        public boolean equals(Object obj){return obj instanceof SameHash && ((SameHash)obj).id == id;}
+    }
+}
@@ -0,0 +1,115 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up keys in containers of N elements, with and without a BloomFilter in front of them.
+ * Nine lookups out of ten are for missing keys, the case the filter answers from one block of bits.
+ */
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class BloomFilter_Benchmark {
+    @Param({"100", "10000", "25000", "50000", "75000", "100000", "150000"})
+    private int N;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    //Keys looked up in turn by every benchmark
+    private static final int LOOKUPS = 1 << 16;
+    private Set arraySet;
+    private Set filteredArraySet;
+    private SortedSet arraySortedSet;
+    private Set filteredArraySortedSet;
+    private Map arrayMap;
+    private Map filteredArrayMap;
+    private BloomFilter filter;
+    private Integer[] lookupKeys;
+    private int lookup;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Integer[] elements = new Integer[N];
+        for(int i=0; i<N; i++)
+            elements[i] = 2 * i;
+        arraySet = ArraySet.of(elements);
+        filteredArraySet = new BloomFilteredSet(ArraySet.of(elements), FALSE_POSITIVE_RATE);
+        arraySortedSet = ArraySortedSet.of(elements);
+        filteredArraySortedSet = new BloomFilteredSet(ArraySortedSet.of(elements), FALSE_POSITIVE_RATE);
+        arrayMap = ArrayMap.fromEntries(elements, elements);
+        filteredArrayMap = new BloomFilteredMap(ArrayMap.fromEntries(elements, elements), FALSE_POSITIVE_RATE);
+        filter = new BloomFilter(N, FALSE_POSITIVE_RATE);
+        for(int i=0; i<N; i++)
+            filter.add(elements[i]);
+        lookupKeys = new Integer[LOOKUPS];
+    }
+    //Even keys are present, odd keys missing
+    @Setup(Level.Iteration)
+    public void setUpKeys(){
+        Random random = new Random();
+        for(int i=0; i<LOOKUPS; i++){
+            int key = 2 * random.nextInt(N);
+            lookupKeys[i] = random.nextInt(10) == 0 ? key : key + 1;
+        }
+    }
+    private Integer nextKey(){
+        return lookupKeys[lookup++ & (LOOKUPS-1)];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean bloomFilter_mightContain(){
+        return filter.mightContain(nextKey());
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean arraySet_contains(){
+        return arraySet.contains(nextKey());
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean filteredArraySet_contains(){
+        return filteredArraySet.contains(nextKey());
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean arraySortedSet_contains(){
+        return arraySortedSet.contains(nextKey());
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean filteredArraySortedSet_contains(){
+        return filteredArraySortedSet.contains(nextKey());
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayMap_get(){
+        return arrayMap.get(nextKey());
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object filteredArrayMap_get(){
+        return filteredArrayMap.get(nextKey());
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(BloomFilter_Benchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,137 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ConcurrentHashTable with an OpenHashTable guarded by one global lock.
+ * main() runs the symmetric benchmarks from 1 thread up to the available processors;
+ * the readWrite groups run 3 readers against 1 writer.
+ */
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class ConcurrentHashTable_Benchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int N;
+    private HashTable concurrentHashTable;
+    private HashTable synchronizedHashTable;
+
+    @State(Scope.Thread)
+    public static class ThreadKeys{
+        private final Random random = new Random();
+        public Integer next(int n){
+            return random.nextInt(n);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        concurrentHashTable = new ConcurrentHashTable();
+        synchronizedHashTable = new SynchronizedHashTable(new OpenHashTable());
+        for(int i=0; i<N; i++){
+            concurrentHashTable.insert(i, i);
+            synchronizedHashTable.insert(i, i);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object concurrentHashTable_find(ThreadKeys keys){
+        return concurrentHashTable.find(keys.next(N));
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object synchronizedHashTable_find(ThreadKeys keys){
+        return synchronizedHashTable.find(keys.next(N));
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void concurrentHashTable_insert(ThreadKeys keys){
+        Integer key = keys.next(N);
+        concurrentHashTable.insert(key, key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void synchronizedHashTable_insert(ThreadKeys keys){
+        Integer key = keys.next(N);
+        synchronizedHashTable.insert(key, key);
+    }
+
+    @Benchmark
+    @Group("concurrentReadWrite")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object concurrentHashTable_reader(ThreadKeys keys){
+        return concurrentHashTable.find(keys.next(N));
+    }
+    @Benchmark
+    @Group("concurrentReadWrite")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void concurrentHashTable_writer(ThreadKeys keys){
+        Integer key = keys.next(N);
+        concurrentHashTable.insert(key, key);
+    }
+    @Benchmark
+    @Group("synchronizedReadWrite")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object synchronizedHashTable_reader(ThreadKeys keys){
+        return synchronizedHashTable.find(keys.next(N));
+    }
+    @Benchmark
+    @Group("synchronizedReadWrite")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void synchronizedHashTable_writer(ThreadKeys keys){
+        Integer key = keys.next(N);
+        synchronizedHashTable.insert(key, key);
+    }
+
+    /**
+     * The global lock currently used to share a HashTable among threads.
+     */
+    private static class SynchronizedHashTable implements HashTable{
+        private final HashTable table;
+        public SynchronizedHashTable(HashTable table){
+            this.table = table;
+        }
+        public synchronized boolean isEmpty(){return table.isEmpty();}
+        public synchronized void makeEmpty(){table.makeEmpty();}
+        public synchronized void insert(Object key, Object value){table.insert(key, value);}
+        public synchronized void remove(Object key){table.remove(key);}
+        public synchronized Object find(Object key){return table.find(key);}
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        int processors = Runtime.getRuntime().availableProcessors();
+        for(int threads=1; threads<=processors; threads*=2){
+            Options opt = new OptionsBuilder()
+                    .include(ConcurrentHashTable_Benchmark.class.getSimpleName() + ".*_(find|insert)")
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+        Options opt = new OptionsBuilder()
+                .include(ConcurrentHashTable_Benchmark.class.getSimpleName() + ".*ReadWrite")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,96 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class Dictionary_Benchmark {
+    @Param({"100", "10000", "25000", "50000", "75000", "100000", "150000"})
+    private int N;
+    //Every key receives VALUES_PER_KEY values on average
+    private static final int VALUES_PER_KEY = 4;
+    private Dictionary dictionary = new ArrayDictionary();
+    private Dictionary hashDictionary = new HashDictionary();
+    private Integer[] keys;
+    private Object key;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        keys = new Integer[N];
+        Random random = new Random();
+        for(int i=0; i<N; i++)
+            keys[i] = random.nextInt(Math.max(N / VALUES_PER_KEY, 1));
+        dictionary.makeEmpty();
+        hashDictionary.makeEmpty();
+        for(int i=0; i<N; i++){
+            dictionary.insert(keys[i], i);
+            hashDictionary.insert(keys[i], i);
+        }
+    }
+    @Setup(Level.Iteration)
+    public void setUpKey(){
+        key = keys[new Random().nextInt(N)];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayDictionary_findAll(){
+        return dictionary.findAll(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object hashDictionary_findAll(){
+        return hashDictionary.findAll(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayDictionary_insertRemove(){
+        dictionary.insert(key, key);
+        return dictionary.remove(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object hashDictionary_insertRemove(){
+        hashDictionary.insert(key, key);
+        return hashDictionary.remove(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Dictionary arrayDictionary_ingest(){
+        Dictionary d = new ArrayDictionary();
+        for(int i=0; i<N; i++)
+            d.insert(keys[i], i);
+        return d;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Dictionary hashDictionary_ingest(){
+        Dictionary d = new HashDictionary();
+        for(int i=0; i<N; i++)
+            d.insert(keys[i], i);
+        return d;
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(Dictionary_Benchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,80 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps N live keys in an ExpiringMap under continuous churn: every put advances a manual clock so that,
+ * on average, one old key expires for every new one. The latency of every put is sampled, including
+ * the reaping it triggers, so the percentiles show whether expiration causes spikes.
+ */
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class ExpiringMap_Benchmark {
+    @Param({"100000", "1000000", "4000000"})
+    private int N;
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(5);
+    //Keys looked up in turn by the get benchmark
+    private static final int LOOKUPS = 1 << 16;
+    private final ManualClock clock = new ManualClock();
+    private ExpiringMap expiringMap;
+    private long step;
+    private int nextKey;
+    private Integer[] lookupKeys;
+    private int lookup;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        step = TIME_TO_LIVE / N;
+        expiringMap = new ExpiringMap(TIME_TO_LIVE, TimeUnit.NANOSECONDS, clock);
+        for(nextKey=0; nextKey<N; nextKey++){
+            clock.time += step;
+            expiringMap.put(nextKey, nextKey);
+        }
+        lookupKeys = new Integer[LOOKUPS];
+    }
+    //The live keys are the last N put, refreshed before every iteration
+    @Setup(Level.Iteration)
+    public void setUpKeys(){
+        Random random = new Random();
+        for(int i=0; i<LOOKUPS; i++)
+            lookupKeys[i] = nextKey - 1 - random.nextInt(N);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object expiringMap_churn(){
+        clock.time += step;
+        Integer key = nextKey++;
+        return expiringMap.put(key, key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object expiringMap_get(){
+        return expiringMap.get(lookupKeys[lookup++ & (LOOKUPS-1)]);
+    }
+
+    //Moved forward only by the benchmark, so that expiration does not depend on the speed of the machine
+    private static class ManualClock implements ExpiringMap.Clock{
+        private long time;
+        public long nanoTime(){return time;}
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(ExpiringMap_Benchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
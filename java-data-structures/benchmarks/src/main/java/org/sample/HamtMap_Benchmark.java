@@ -0,0 +1,114 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares publishing read-only versions of a map of N keys with ArrayMap, copied on every version,
+ * and HamtMap, sharing the unchanged nodes between versions.
+ * Run with the GC profiler (as main does, or -prof gc): gc.alloc.rate.norm is the memory taken by
+ * every new version, O(n) for the copy against O(log32 n) for the path copied by HamtMap.
+ */
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class HamtMap_Benchmark {
+    @Param({"100", "10000", "25000", "50000", "75000", "100000", "150000"})
+    private int N;
+    private Integer[] keys;
+    private Integer[] values;
+    private ArrayMap arrayMap;
+    private HamtMap hamtMap;
+    private Object key;
+    //Changes on every put, which would otherwise find the value already there
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Random random = new Random();
+        keys = new Integer[N];
+        values = new Integer[N];
+        for(int i=0; i<N; i++){
+            keys[i] = i;
+            values[i] = random.nextInt();
+        }
+        arrayMap = ArrayMap.fromEntries(keys, values);
+        hamtMap = new HamtMap();
+        for(int i=0; i<N; i++)
+            hamtMap.put(keys[i], values[i]);
+    }
+    @Setup(Level.Iteration)
+    public void setUpKey(){
+        key = new Random().nextInt(N);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayMap_snapshot(){
+        return ArrayMap.fromEntries(keys, values);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object hamtMap_snapshot(){
+        return hamtMap.snapshot();
+    }
+    //A new version with one association changed, the previous one left intact for its readers
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayMap_copyOnWrite(){
+        ArrayMap copy = ArrayMap.fromEntries(keys, values);
+        copy.put(key, key);
+        return copy;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object hamtMap_with(){
+        return hamtMap.with(key, key);
+    }
+    //In place updates, for the throughput of a single writer
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayMap_put(){
+        return arrayMap.put(key, value++);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object hamtMap_put(){
+        return hamtMap.put(key, value++);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayMap_get(){
+        return arrayMap.get(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object hamtMap_get(){
+        return hamtMap.get(key);
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(HamtMap_Benchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,107 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hash strategies over key patterns that defeat a plain hashCode:
+ * strided integers collide under a power-of-two mask, and the colliding strings all share one hashCode.
+ * The chain length distribution of every configuration is printed during the setup.
+ */
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class HashStrategy_Benchmark {
+    @Param({"1000", "10000", "50000"})
+    private int N;
+    @Param({"sequential", "strided", "colliding"})
+    private String pattern;
+    @Param({"default", "mix", "seeded"})
+    private String strategy;
+    private static final int DIM = 1 << 16;
+    private Object[] keys;
+    private ArrayHashTable arrayHashTable;
+    private HashTable openHashTable;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        keys = generateKeys(pattern, N);
+        HashStrategy hashStrategy = strategy(strategy);
+        arrayHashTable = new ArrayHashTable(DIM, hashStrategy);
+        openHashTable = new OpenHashTable(DIM, 0.5f, hashStrategy);
+        for(Object key: keys){
+            arrayHashTable.insert(key, key);
+            openHashTable.insert(key, key);
+        }
+        printChainLengths();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayHashTable_find(){
+        Object key = keys[next];
+        next = next+1 == keys.length ? 0 : next+1;
+        return arrayHashTable.find(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object openHashTable_find(){
+        Object key = keys[next];
+        next = next+1 == keys.length ? 0 : next+1;
+        return openHashTable.find(key);
+    }
+
+    private void printChainLengths(){
+        int[] lengths = arrayHashTable.chainLengths();
+        int used = 0, max = 0;
+        for(int length: lengths){
+            if(length > 0)
+                used++;
+            max = Math.max(max, length);
+        }
+        System.out.printf("%n[%s/%s] buckets used: %d/%d, mean chain: %.2f, max chain: %d%n",
+                pattern, strategy, used, lengths.length, (N + 0.0) / used, max);
+    }
+    private static HashStrategy strategy(String name){
+        switch(name){
+            case "default": return HashStrategy.DEFAULT;
+            case "mix": return HashStrategy.MIX;
+            default: return new SeededHashStrategy();
+        }
+    }
+    private static Object[] generateKeys(String pattern, int size){
+        Object[] keys = new Object[size];
+        for(int i=0; i<size; i++){
+            switch(pattern){
+                case "sequential": keys[i] = i; break;
+                case "strided": keys[i] = i * DIM; break;
+                default: keys[i] = collidingString(i);
+            }
+        }
+        return keys;
+    }
+    //"Aa" and "BB" have the same hashCode, so do all the strings made of the same number of them
+    private static String collidingString(int i){
+        StringBuilder s = new StringBuilder();
+        for(int bit=0; bit<20; bit++)
+            s.append((i >>> bit & 1) == 0 ? "Aa" : "BB");
+        return s.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(HashStrategy_Benchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
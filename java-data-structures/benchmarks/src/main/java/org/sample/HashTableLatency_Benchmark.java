@@ -0,0 +1,71 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the latency of every single insert while a table grows from empty to N entries,
+ * so the percentiles show the cost of the inserts that trigger a resize.
+ */
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class HashTableLatency_Benchmark {
+    @Param({"100000", "1000000", "10000000"})
+    private int N;
+    private Integer[] keys;
+    private HashTable openHashTable;
+    private HashTable incrementalHashTable;
+    private int nextOpen;
+    private int nextIncremental;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        keys = new Integer[N];
+        for(int i=0; i<N; i++)
+            keys[i] = i;
+        openHashTable = new OpenHashTable();
+        incrementalHashTable = new IncrementalHashTable();
+    }
+    //Once a table is full it is replaced outside of the measured invocation
+    @Setup(Level.Invocation)
+    public void refill(){
+        if(nextOpen == N){
+            openHashTable = new OpenHashTable();
+            nextOpen = 0;
+        }
+        if(nextIncremental == N){
+            incrementalHashTable = new IncrementalHashTable();
+            nextIncremental = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void openHashTable_insert(){
+        Integer key = keys[nextOpen++];
+        openHashTable.insert(key, key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void incrementalHashTable_insert(){
+        Integer key = keys[nextIncremental++];
+        incrementalHashTable.insert(key, key);
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(HashTableLatency_Benchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,87 @@
+package org.sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 15, timeUnit = TimeUnit.SECONDS)
+@Timeout(time = 3, timeUnit = TimeUnit.MINUTES)
+@State(Scope.Benchmark)
+public class HashTable_Benchmark {
+    @Param({"100", "10000", "25000", "50000", "75000", "100000", "150000"})
+    private int N;
+    //Both tables start with the same dimension: ArrayHashTable keeps it, OpenHashTable grows
+    private static final int DIM = 1024;
+    private HashTable arrayHashTable = new ArrayHashTable(DIM);
+    private HashTable openHashTable = new OpenHashTable(DIM);
+    private Object key;
+    private Object missingKey;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        arrayHashTable.makeEmpty();
+        openHashTable.makeEmpty();
+        for(int i=0; i<N; i++){
+            arrayHashTable.insert(i, i);
+            openHashTable.insert(i, i);
+        }
+    }
+    @Setup(Level.Iteration)
+    public void setUpKey(){
+        key = new Random().nextInt(N);
+        missingKey = N + new Random().nextInt(N);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayHashTable_find(){
+        return arrayHashTable.find(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object openHashTable_find(){
+        return openHashTable.find(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayHashTable_findMissing(){
+        return arrayHashTable.find(missingKey);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object openHashTable_findMissing(){
+        return openHashTable.find(missingKey);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void arrayHashTable_removeInsert(){
+        arrayHashTable.remove(key);
+        arrayHashTable.insert(key, key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void openHashTable_removeInsert(){
+        openHashTable.remove(key);
+        openHashTable.insert(key, key);
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        Options opt = new OptionsBuilder()
+                .include(HashTable_Benchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
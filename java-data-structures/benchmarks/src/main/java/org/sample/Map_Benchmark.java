@@ -52,9 +52,26 @@ import java.util.stream.Collectors;
 public class Map_Benchmark {
     @Param({"100", "10000", "25000", "50000", "75000", "100000", "150000"})
     private int N;
-    private Map map = new ArrayMap();
-    private SortedMap sortedMap = new ArraySortedMap();
+    private Map map;
+    private Map perfectHashMap;
+    private SortedMap sortedMap;
+    private SortedMap frozenSortedMap;
+    private SortedMap bPlusTreeMap = new BPlusTreeMap();
+    private SortedMap bufferedSortedMap = new BufferedSortedMap();
+    private IntIntMap intIntMap = new IntIntHashMap();
+    private CacheMap cacheMap;
+    //A tenth of the keys fit, so that most random gets load and evict
+    private CacheMap boundedCacheMap;
+    private final CacheMap.Loader loader = new CacheMap.Loader(){
+        public Object load(Object key){return key;}
+    };
     private Object key;
+    private int intKey;
+    private Integer[] randomKeys;
+    //Keys looked up in turn by the random get benchmarks, so that every call may miss the cache
+    private static final int LOOKUPS = 1 << 16;
+    private Integer[] lookupKeys;
+    private int lookup;
     private static List<Integer> generateRandomList(int size){
         return new Random().ints(size).boxed()
                 .collect(Collectors.toList());
@@ -81,14 +98,32 @@ public class Map_Benchmark {
          sortedMap.makeEmpty();
         */
         List<Integer> list = generateRandomList(N);
+        Integer[] keys = new Integer[N];
+        for(int i=0; i<N; i++)
+            keys[i] = i;
+        randomKeys = list.toArray(new Integer[N]);
+        //Bulk loading, N puts would make the setup of the array maps quadratic
+        map = ArrayMap.fromEntries(keys, randomKeys);
+        perfectHashMap = PerfectHashMap.fromEntries(keys, randomKeys);
+        sortedMap = ArraySortedMap.fromEntries(keys, randomKeys);
+        frozenSortedMap = ((ArraySortedMap)sortedMap).freeze();
+        cacheMap = new CacheMap(N);
+        boundedCacheMap = new CacheMap(Math.max(N / 10, 1));
+        Random random = new Random();
+        lookupKeys = new Integer[LOOKUPS];
+        for(int i=0; i<LOOKUPS; i++)
+            lookupKeys[i] = random.nextInt(N);
         for(int i=0; i<N; i++){
-            map.put(i, list.get(i));
-            sortedMap.put(i, list.get(i));
+            bPlusTreeMap.put(i, list.get(i));
+            bufferedSortedMap.put(i, list.get(i));
+            intIntMap.put(i, list.get(i));
+            cacheMap.put(i, list.get(i));
         }
     }
     @Setup(Level.Iteration)
     public void setUpKey(){
-        key = new Random().nextInt(N);
+        intKey = new Random().nextInt(N);
+        key = intKey;
     }
 
     @Benchmark
@@ -100,9 +135,124 @@ public class Map_Benchmark {
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object perfectHashMap(){
+        return perfectHashMap.get(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object perfectHashMapRandomGet(){
+        return perfectHashMap.get(lookupKeys[lookup++ & (LOOKUPS-1)]);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object cacheMap(){
+        return cacheMap.get(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object cacheMapRandomLoad(){
+        return boundedCacheMap.get(lookupKeys[lookup++ & (LOOKUPS-1)], loader);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
     public Object arraySortedMap(){
         return sortedMap.get(key);
     }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object frozenSortedMap(){
+        return frozenSortedMap.get(key);
+    }
+    //Run with -p N=1000000 or more to see the effect of the layout on cache misses
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arraySortedMapRandomGet(){
+        return sortedMap.get(lookupKeys[lookup++ & (LOOKUPS-1)]);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object frozenSortedMapRandomGet(){
+        return frozenSortedMap.get(lookupKeys[lookup++ & (LOOKUPS-1)]);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object bPlusTreeMap(){
+        return bPlusTreeMap.get(key);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object bufferedSortedMap(){
+        return bufferedSortedMap.get(key);
+    }
+    //Remove and put back the same key, so that the size stays N across invocations
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arrayMapPutRemove(){
+        return map.put(key, map.remove(key));
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object arraySortedMapPutRemove(){
+        return sortedMap.put(key, sortedMap.remove(key));
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object bPlusTreeMapPutRemove(){
+        return bPlusTreeMap.put(key, bPlusTreeMap.remove(key));
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object bufferedSortedMapPutRemove(){
+        return bufferedSortedMap.put(key, bufferedSortedMap.remove(key));
+    }
+    //Build a map from N keys in random order
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedMap arraySortedMapIngest(){
+        SortedMap m = new ArraySortedMap();
+        for(int i=0; i<N; i++)
+            m.put(randomKeys[i], i);
+        return m;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedMap bPlusTreeMapIngest(){
+        SortedMap m = new BPlusTreeMap();
+        for(int i=0; i<N; i++)
+            m.put(randomKeys[i], i);
+        return m;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedMap bufferedSortedMapIngest(){
+        BufferedSortedMap m = new BufferedSortedMap();
+        for(int i=0; i<N; i++)
+            m.put(randomKeys[i], i);
+        m.compact();
+        return m;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int intIntHashMap(){
+        return intIntMap.get(intKey);
+    }
 
     public static void main(String[] args) throws RunnerException{
         Options opt = new OptionsBuilder()
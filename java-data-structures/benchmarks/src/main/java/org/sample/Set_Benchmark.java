@@ -1,6 +1,7 @@
 package org.sample;
 
 import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -8,8 +9,10 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 @Fork(value = 2)
@@ -20,10 +23,45 @@ import java.util.concurrent.TimeUnit;
 public class Set_Benchmark {
     @Param({"100", "10000", "25000", "50000", "75000", "100000", "150000"})
     private int N;
-    private Set set_1 = new ArraySet();
-    private Set set_2 = new ArraySet();
-    private SortedSet sortedSet_1 = new ArraySortedSet();
-    private SortedSet sortedSet_2 = new ArraySortedSet();
+    private Set set_1;
+    private Set set_2;
+    private Set hashSet_1;
+    private Set hashSet_2;
+    private SortedSet sortedSet_1;
+    private SortedSet sortedSet_2;
+    private SortedSet roaringSet_1;
+    private SortedSet roaringSet_2;
+
+    //Pool of the parallel set operations, with its own parameter so that only they run once per thread count
+    @State(Scope.Benchmark)
+    public static class Pool{
+        @Param({"1", "2", "4", "8"})
+        private int threads;
+        private ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            pool = new ForkJoinPool(threads);
+        }
+        @TearDown(Level.Trial)
+        public void tearDown(){
+            pool.shutdown();
+        }
+    }
+    //A sorted set N/skew times smaller than sortedSet_1, drawn from the same range, for the skewed operations
+    @State(Scope.Benchmark)
+    public static class Skewed{
+        @Param({"1", "16", "256", "4096"})
+        private int skew;
+        private SortedSet small;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams params){
+            int n = Integer.parseInt(params.getParam("N"));
+            List<Integer> list = generateUniqueRandomList(Math.max(1, n / skew), 0, 2*n);
+            small = ArraySortedSet.of(list.toArray(new Comparable[0]));
+        }
+    }
     public static List<Integer> generateUniqueRandomList(int size, int min, int max) {
         if (size > (max - min + 1)) {
             throw new IllegalArgumentException("Size must be less than or equal to the range of unique values.");
@@ -44,18 +82,14 @@ public class Set_Benchmark {
     public void setUp(){
         List<Integer> list_1 = generateUniqueRandomList(N, 0, 2*N);
         List<Integer> list_2 = generateUniqueRandomList(N, 0, 2*N);
-        set_1.makeEmpty();
-        set_2.makeEmpty();
-        sortedSet_1.makeEmpty();
-        sortedSet_2.makeEmpty();
-        for (Integer i: list_1){
-            set_1.add(i);
-            sortedSet_1.add(i);
-        }
-        for (Integer i: list_2){
-            set_2.add(i);
-            sortedSet_2.add(i);
-        }
+        set_1 = ArraySet.of(list_1.toArray());
+        set_2 = ArraySet.of(list_2.toArray());
+        hashSet_1 = OpenHashSet.of(list_1.toArray());
+        hashSet_2 = OpenHashSet.of(list_2.toArray());
+        sortedSet_1 = ArraySortedSet.of(list_1.toArray(new Comparable[0]));
+        sortedSet_2 = ArraySortedSet.of(list_2.toArray(new Comparable[0]));
+        roaringSet_1 = RoaringSet.of(list_1.toArray(new Comparable[0]));
+        roaringSet_2 = RoaringSet.of(list_2.toArray(new Comparable[0]));
     }
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
@@ -79,6 +113,74 @@ public class Set_Benchmark {
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set openHashSet_union(){
+        return OpenHashSet.union(hashSet_1, hashSet_2);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set openHashSet_intersection(){
+        return OpenHashSet.intersection(hashSet_1, hashSet_2);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set openHashSet_subtraction(){
+        return OpenHashSet.subtraction(hashSet_1, hashSet_2);
+    }
+    //The same operations on ArraySet operands, which are hashed on the fly
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set openHashSet_unionOfArraySets(){
+        return OpenHashSet.union(set_1, set_2);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set openHashSet_intersectionOfArraySets(){
+        return OpenHashSet.intersection(set_1, set_2);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set openHashSet_subtractionOfArraySets(){
+        return OpenHashSet.subtraction(set_1, set_2);
+    }
+    //Symmetric difference, iterated once: built from intermediate sets, then streamed by composed views
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int openHashSet_symmetricDifference(){
+        Set x = OpenHashSet.subtraction(OpenHashSet.union(hashSet_1, hashSet_2), OpenHashSet.intersection(hashSet_1, hashSet_2));
+        return x.toArray().length;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int setView_symmetricDifference(){
+        SetView x = SetView.differenceView(SetView.unionView(hashSet_1, hashSet_2), SetView.intersectionView(hashSet_1, hashSet_2));
+        int n = 0;
+        for(Iterator<Object> it = x.elements(); it.hasNext(); it.next())
+            n++;
+        return n;
+    }
+    //A single membership test in a union, which the set operations answer only after building it
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean arraySet_unionContains(){
+        return ArraySet.union(set_1, set_2).contains(N);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean setView_unionContains(){
+        return SetView.unionView(set_1, set_2).contains(N);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
     public SortedSet arraySortedSet_union(){
         return ArraySortedSet.union(sortedSet_1, sortedSet_2);
     }
@@ -94,6 +196,60 @@ public class Set_Benchmark {
     public SortedSet arraySortedSet_subtraction(){
         return ArraySortedSet.subtraction(sortedSet_1, sortedSet_2);
     }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedSet arraySortedSet_parallelUnion(Pool pool){
+        return ArraySortedSet.union(sortedSet_1, sortedSet_2, pool.pool);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedSet arraySortedSet_parallelIntersection(Pool pool){
+        return ArraySortedSet.intersection(sortedSet_1, sortedSet_2, pool.pool);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedSet arraySortedSet_parallelSubtraction(Pool pool){
+        return ArraySortedSet.subtraction(sortedSet_1, sortedSet_2, pool.pool);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SortedSet arraySortedSet_skewedIntersection(Skewed skewed){
+        return ArraySortedSet.intersection(sortedSet_1, skewed.small);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SortedSet arraySortedSet_skewedSubtraction(Skewed skewed){
+        return ArraySortedSet.subtraction(skewed.small, sortedSet_1);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SortedSet arraySortedSet_skewedIntersectAll(Skewed skewed){
+        return ArraySortedSet.intersectAll(sortedSet_1, sortedSet_2, skewed.small);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedSet roaringSet_union(){
+        return RoaringSet.union(roaringSet_1, roaringSet_2);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedSet roaringSet_intersection(){
+        return RoaringSet.intersection(roaringSet_1, roaringSet_2);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SortedSet roaringSet_subtraction(){
+        return RoaringSet.subtraction(roaringSet_1, roaringSet_2);
+    }
     public static void main(String[] args) throws RunnerException{
         Options opt = new OptionsBuilder()
                 .include(Set_Benchmark.class.getSimpleName())